@@ -0,0 +1,12 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemDTO {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartPurchaseRequestDTO {
+    // Un mismo producto puede aparecer varias veces: se suman sus cantidades
+    private List<CartItemDTO> items;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductInventoryBatchDTO {
+    private List<ProductInventoryResponseDTO> items;
+    // IDs que productos-service no conoce
+    private List<Long> missing;
+    // IDs cuyo lote no respondió a tiempo: se puede reintentar solo con ellos
+    private List<Long> unavailable;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductInventoryPageDTO {
+    private List<ProductInventoryResponseDTO> items;
+    // Cursor de productos-service para pedir la siguiente página; null en la última
+    private String nextCursor;
+}
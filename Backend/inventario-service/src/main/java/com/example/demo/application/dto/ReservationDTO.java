@@ -0,0 +1,20 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+    private String reservationId;
+    private Long productId;
+    private Integer quantity;
+    private Instant expiresAt;
+    // ACTIVE, CONFIRMED o RELEASED
+    private String status;
+    // Stock disponible para la venta tras reservar (solo al crear la reserva)
+    private Integer available;
+}
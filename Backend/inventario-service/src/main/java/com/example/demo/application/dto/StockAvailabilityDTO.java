@@ -0,0 +1,15 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityDTO {
+    private Long productId;
+    // Existencias: lo disponible más lo apartado en reservas activas
+    private Integer onHand;
+    private Integer reserved;
+    private Integer available;
+}
@@ -0,0 +1,275 @@
+package com.example.demo.application.reservation;
+
+import com.example.demo.application.dto.ReservationDTO;
+import com.example.demo.application.service.StockService;
+import com.example.demo.application.stock.StockEngine;
+import com.example.demo.domain.model.StockReservation;
+import com.example.demo.infrastructure.exception.ReservationNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reservas de stock con caducidad. Reservar resta la cantidad del inventario (igual que
+ * una compra, así que ninguna compra puede llevarse stock apartado) y guarda la reserva;
+ * confirmar solo borra la reserva; liberar o caducar devuelve el stock.
+ * <p>
+ * Las reservas activas están en memoria: un mapa por ID, un contador de lo apartado por
+ * producto (O(1) por consulta) y una {@link TimingWheel} para la caducidad, sin recorrer
+ * la tabla. Cada tick se devuelven juntas todas las que vencen. Al arrancar se vuelven a
+ * programar las guardadas. Confirmar, liberar y caducar compiten por quitar la reserva del
+ * mapa: solo una de las tres ocurre.
+ */
+@Service
+public class ReservationService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private final StockService stockService;
+    // null si el motor de stock en memoria está desactivado
+    private final StockEngine stockEngine;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Duration tick;
+    private final TimingWheel<String> wheel;
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> heldByProduct = new ConcurrentHashMap<>();
+    private final Counter expired;
+
+    private ScheduledExecutorService ticker;
+
+    public ReservationService(
+            StockService stockService,
+            Optional<StockEngine> stockEngine,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.reservations.default-ttl:10m}") Duration defaultTtl,
+            @Value("${inventory.reservations.max-ttl:1h}") Duration maxTtl,
+            @Value("${inventory.reservations.tick:100ms}") Duration tick,
+            @Value("${inventory.reservations.wheel-size:512}") int wheelSize) {
+        this.stockService = stockService;
+        this.stockEngine = stockEngine.orElse(null);
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.tick = tick;
+        this.wheel = new TimingWheel<>(System.nanoTime(), tick.toNanos(), wheelSize);
+
+        Gauge.builder("inventory.reservations.active", holds, Map::size)
+                .description("Reservas de stock activas")
+                .register(meterRegistry);
+        this.expired = Counter.builder("inventory.reservations.expired")
+                .description("Reservas de stock caducadas sin confirmar")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔹 Apartar stock durante {@code ttl} (por defecto default-ttl). Sin inventario:
+     * ProductNotFoundException; sin stock suficiente: InsufficientStockException.
+     */
+    public ReservationDTO reserve(Long productId, int quantity, Duration ttl) {
+        Duration holdFor = ttl == null ? defaultTtl : ttl;
+        if (holdFor.isNegative() || holdFor.isZero() || holdFor.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("La duración de la reserva debe ser positiva y como mucho de " + maxTtl.toSeconds() + " s");
+        }
+        StockReservation reservation = new StockReservation(
+                UUID.randomUUID().toString(), productId, quantity, Instant.now().plus(holdFor));
+
+        int available;
+        if (stockEngine != null) {
+            available = stockEngine.purchase(productId, quantity);
+            try {
+                stockService.saveReservation(reservation);
+            } catch (RuntimeException e) {
+                stockEngine.restore(productId, quantity);
+                throw e;
+            }
+        } else {
+            available = stockService.reserve(reservation);
+        }
+
+        hold(reservation, System.nanoTime() + holdFor.toNanos());
+        log.info("Reserved {} units of productId={} until {} ({})",
+                quantity, productId, reservation.getExpiresAt(), reservation.getId());
+        return toDto(reservation, "ACTIVE", available);
+    }
+
+    /** 🔹 Confirmar la reserva: el stock apartado queda vendido */
+    public ReservationDTO confirm(String reservationId) {
+        StockReservation reservation = claim(reservationId);
+        try {
+            stockService.deleteReservations(List.of(reservation));
+        } catch (RuntimeException e) {
+            reschedule(reservation);
+            throw e;
+        }
+        settled(reservation);
+        log.info("Reservation {} confirmed", reservationId);
+        return toDto(reservation, "CONFIRMED", null);
+    }
+
+    /** 🔹 Liberar la reserva y devolver el stock apartado */
+    public ReservationDTO release(String reservationId) {
+        StockReservation reservation = claim(reservationId);
+        try {
+            returnStock(List.of(reservation));
+        } catch (RuntimeException e) {
+            reschedule(reservation);
+            throw e;
+        }
+        settled(reservation);
+        log.info("Reservation {} released", reservationId);
+        return toDto(reservation, "RELEASED", null);
+    }
+
+    /** 🔹 Unidades del producto apartadas en reservas activas */
+    public int held(Long productId) {
+        AtomicInteger held = heldByProduct.get(productId);
+        return held == null ? 0 : held.get();
+    }
+
+    /** 🔹 Devolver el stock de las reservas que vencen en este tick, en una sola transacción */
+    private void expireDue() {
+        List<StockReservation> due = new ArrayList<>();
+        for (String id : wheel.advance(System.nanoTime())) {
+            Hold hold = holds.remove(id);
+            if (hold != null) due.add(hold.reservation);
+        }
+        if (due.isEmpty()) return;
+
+        try {
+            returnStock(due);
+        } catch (RuntimeException e) {
+            // Se reintentan en el siguiente tick
+            log.error("Could not release {} expired reservations: {}", due.size(), e.getMessage());
+            due.forEach(this::reschedule);
+            return;
+        }
+        due.forEach(this::settled);
+        expired.increment(due.size());
+        log.info("{} reservations expired", due.size());
+    }
+
+    @Override
+    public synchronized void start() {
+        List<StockReservation> saved = stockService.reservations();
+        long now = System.nanoTime();
+        Instant wallNow = Instant.now();
+        saved.forEach(reservation -> hold(reservation,
+                now + Math.max(0, Duration.between(wallNow, reservation.getExpiresAt()).toNanos())));
+        if (!saved.isEmpty()) {
+            log.info("Rescheduled {} stock reservations", saved.size());
+        }
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                expireDue();
+            } catch (RuntimeException e) {
+                log.error("Reservation expiry failed: {}", e.getMessage());
+            }
+        }, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (ticker == null) return;
+        // Las reservas siguen guardadas: al arrancar se vuelven a programar
+        ticker.shutdown();
+        ticker = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return ticker != null;
+    }
+
+    // Después del motor de stock al arrancar (las caducidades lo usan) y antes al detenerse
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private void hold(StockReservation reservation, long deadlineNanos) {
+        heldByProduct.computeIfAbsent(reservation.getProductId(), id -> new AtomicInteger())
+                .addAndGet(reservation.getQuantity());
+        schedule(reservation, deadlineNanos);
+    }
+
+    private void schedule(StockReservation reservation, long deadlineNanos) {
+        Hold hold = new Hold(reservation);
+        holds.put(reservation.getId(), hold);
+        // Programada después de registrarla: si vence enseguida, ya está en el mapa
+        hold.timeout = wheel.schedule(reservation.getId(), deadlineNanos);
+    }
+
+    // Tras un fallo al confirmar, liberar o caducar, la reserva vuelve a estar activa
+    private void reschedule(StockReservation reservation) {
+        long remaining = Duration.between(Instant.now(), reservation.getExpiresAt()).toNanos();
+        schedule(reservation, System.nanoTime() + Math.max(remaining, tick.toNanos()));
+    }
+
+    // Lo apartado deja de contar una vez vendido o devuelto, no antes
+    private void settled(StockReservation reservation) {
+        heldByProduct.get(reservation.getProductId()).addAndGet(-reservation.getQuantity());
+    }
+
+    private StockReservation claim(String reservationId) {
+        Hold hold = holds.remove(reservationId);
+        if (hold == null) throw new ReservationNotFoundException(reservationId);
+        TimingWheel.Timeout<String> timeout = hold.timeout;
+        if (timeout != null) timeout.cancel();
+        return hold.reservation;
+    }
+
+    private void returnStock(List<StockReservation> reservations) {
+        if (stockEngine == null) {
+            stockService.releaseReservations(reservations);
+            return;
+        }
+        // Primero se borran: si el proceso cae antes de devolver, se pierde stock, no se duplica
+        stockService.deleteReservations(reservations);
+        reservations.forEach(reservation -> stockEngine.restore(reservation.getProductId(), reservation.getQuantity()));
+    }
+
+    private static ReservationDTO toDto(StockReservation reservation, String status, Integer available) {
+        return ReservationDTO.builder()
+                .reservationId(reservation.getId())
+                .productId(reservation.getProductId())
+                .quantity(reservation.getQuantity())
+                .expiresAt(reservation.getExpiresAt())
+                .status(status)
+                .available(available)
+                .build();
+    }
+
+    private static final class Hold {
+
+        private final StockReservation reservation;
+        private volatile TimingWheel.Timeout<String> timeout;
+
+        Hold(StockReservation reservation) {
+            this.reservation = reservation;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.application.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rueda de temporización con hash: {@code wheelSize} casillas de {@code tickNanos} cada
+ * una. Programar y cancelar son O(1) desde cualquier hilo; {@link #advance(long)} lo llama
+ * un único hilo y solo recorre las casillas de los ticks vencidos, no todos los plazos.
+ * <p>
+ * Un plazo más allá de una vuelta se guarda con las vueltas que le faltan. Cada elemento
+ * vence en el primer tick igual o posterior a su plazo (como mucho un tick tarde). Los
+ * cancelados se quitan al pasar por su casilla.
+ */
+public class TimingWheel<T> {
+
+    private final long startNanos;
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Timeout<T>>> slots;
+    // Programados desde otros hilos; los reparte en las casillas el hilo de advance()
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private long tick;
+
+    public TimingWheel(long startNanos, long tickNanos, int wheelSize) {
+        if (tickNanos <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Tick positivo y número de casillas potencia de 2");
+        }
+        this.startNanos = startNanos;
+        this.tickNanos = tickNanos;
+        this.mask = wheelSize - 1;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /** 🔹 Programar un elemento para que venza en {@code deadlineNanos} (misma base que System.nanoTime) */
+    public Timeout<T> schedule(T item, long deadlineNanos) {
+        Timeout<T> timeout = new Timeout<>(item, deadlineNanos);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /** 🔹 Avanzar hasta {@code nowNanos} y devolver los elementos vencidos, sin los cancelados */
+    public List<T> advance(long nowNanos) {
+        List<T> expired = new ArrayList<>();
+        long target = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        while (tick <= target) {
+            transferScheduled();
+            expire(slots.get((int) (tick & mask)), expired);
+            tick++;
+        }
+        return expired;
+    }
+
+    private void transferScheduled() {
+        for (Timeout<T> timeout = scheduled.poll(); timeout != null; timeout = scheduled.poll()) {
+            if (timeout.isCancelled()) continue;
+            // Primer tick igual o posterior al plazo; los ya vencidos, en el tick actual
+            long deadlineTick = Math.max(tick, -Math.floorDiv(startNanos - timeout.deadlineNanos, tickNanos));
+            timeout.remainingRounds = (deadlineTick - tick) / slots.size();
+            slots.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private static <T> void expire(List<Timeout<T>> slot, List<T> expired) {
+        int kept = 0;
+        for (Timeout<T> timeout : slot) {
+            if (timeout.isCancelled()) continue;
+            if (timeout.remainingRounds == 0) {
+                if (timeout.state.compareAndSet(false, true)) expired.add(timeout.item);
+                continue;
+            }
+            timeout.remainingRounds--;
+            slot.set(kept++, timeout);
+        }
+        slot.subList(kept, slot.size()).clear();
+    }
+
+    /** Elemento programado; {@link #cancel()} evita que venza si aún no lo ha hecho */
+    public static final class Timeout<T> {
+
+        private final T item;
+        private final long deadlineNanos;
+        // true una vez cancelado o vencido: solo una de las dos cosas ocurre
+        private final AtomicBoolean state = new AtomicBoolean();
+        private long remainingRounds;
+
+        private Timeout(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /** 🔹 Cancelar; false si ya había vencido o se había cancelado */
+        public boolean cancel() {
+            return state.compareAndSet(false, true);
+        }
+
+        // Los vencidos salen de la rueda al vencer: uno que siga en ella y esté marcado, se canceló
+        private boolean isCancelled() {
+            return state.get();
+        }
+    }
+}
@@ -1,116 +1,190 @@
 package com.example.demo.application.service;
 
+import com.example.demo.application.dto.CartItemDTO;
+import com.example.demo.application.dto.ProductInventoryBatchDTO;
 import com.example.demo.application.dto.ProductInventoryDTO;
+import com.example.demo.application.dto.ProductInventoryPageDTO;
 import com.example.demo.application.dto.ProductInventoryResponseDTO;
 import com.example.demo.application.dto.ProductResponse;
+import com.example.demo.application.dto.ReservationDTO;
+import com.example.demo.application.dto.StockAvailabilityDTO;
+import com.example.demo.application.reservation.ReservationService;
+import com.example.demo.application.stock.PurchaseCoalescer;
+import com.example.demo.application.stock.StockEngine;
 import com.example.demo.domain.model.Inventory;
 import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.infrastructure.client.ProductClient;
+import com.example.demo.infrastructure.client.ProductClient.ProductBatch;
+import com.example.demo.infrastructure.client.ProductClient.ProductPage;
 import com.example.demo.infrastructure.exception.ProductNotFoundException;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import com.example.demo.infrastructure.exception.ProductServiceException;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("inventory.service")
 public class InventoryService {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
 
     private final InventoryRepository repository;
-    private final RestTemplate restTemplate;
-    private final String productServiceUrl;
+    private final ProductClient productClient;
+    private final ProductCacheService productCache;
+    private final StockService stockService;
+    private final ReservationService reservationService;
+    // null si el motor de stock en memoria está desactivado
+    private final StockEngine stockEngine;
+    // null si las compras no se agrupan por producto
+    private final PurchaseCoalescer purchaseCoalescer;
+    private final int maxBatchSize;
+    private final int catalogPageSize;
 
     public InventoryService(
             InventoryRepository repository,
-            @Value("${PRODUCT_SERVICE_URL:http://localhost:8081/products}") String productServiceUrl) {
+            ProductClient productClient,
+            ProductCacheService productCache,
+            StockService stockService,
+            ReservationService reservationService,
+            Optional<StockEngine> stockEngine,
+            Optional<PurchaseCoalescer> purchaseCoalescer,
+            @Value("${inventory.batch.max-size:1000}") int maxBatchSize,
+            @Value("${inventory.catalog.page-size:500}") int catalogPageSize) {
 
         this.repository = repository;
-        this.productServiceUrl = productServiceUrl;
-
-        HttpComponentsClientHttpRequestFactory requestFactory =
-                new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault());
-        this.restTemplate = new RestTemplate(requestFactory);
+        this.productClient = productClient;
+        this.productCache = productCache;
+        this.stockService = stockService;
+        this.reservationService = reservationService;
+        this.stockEngine = stockEngine.orElse(null);
+        this.purchaseCoalescer = purchaseCoalescer.orElse(null);
+        this.maxBatchSize = maxBatchSize;
+        this.catalogPageSize = catalogPageSize;
     }
 
     /**
-     * 🔹 Obtener todos los productos con la cantidad real desde la base de datos local
+     * 🔹 Una página del catálogo con la cantidad real de la base de datos local: solo se
+     * leen las filas de inventario de los productos de la página.
      */
-    public List<ProductInventoryResponseDTO> getAllProductsWithQuantities() {
-        log.info("Fetching all products with inventory quantities from DB...");
+    public ProductInventoryPageDTO getInventoryPage(String after, int limit) {
+        if (limit < 1 || limit > catalogPageSize) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + catalogPageSize);
+        }
+        log.info("Fetching inventory page after={} limit={}", after, limit);
+        return withQuantities(await(productClient.listProducts(after, limit)));
+    }
 
-        try {
-            // Obtener todos los productos del microservicio de productos
-            ResponseEntity<ProductResponse[]> response = restTemplate.getForEntity(
-                    productServiceUrl, ProductResponse[].class);
-
-            List<ProductResponse> products = Arrays.asList(Objects.requireNonNull(response.getBody()));
-
-            // Obtener inventario local (productId -> cantidad)
-            Map<Long, Integer> inventoryMap = repository.findAll().stream()
-                    .collect(Collectors.toMap(
-                            Inventory::getProductId,
-                            Inventory::getQuantity,
-                            (a, b) -> b));
-
-            // Combinar datos
-            return products.stream()
-                    .map(product -> new ProductInventoryResponseDTO(
-                            product.getId(),
-                            product.getName(),
-                            product.getSku(),
-                            product.getPrice(),
-                            inventoryMap.getOrDefault(product.getId(), 0),
-                            product.getDescription()
-                    ))
-                    .collect(Collectors.toList());
-
-        } catch (Exception e) {
-            log.error("Error fetching combined product-inventory data: {}", e.getMessage());
-            throw new RuntimeException("No se pudo obtener la lista de productos con inventario local.");
+    /**
+     * 🔹 Recorrer el catálogo completo con sus cantidades, página a página a partir de la
+     * primera. La siguiente página se pide a productos-service mientras se entrega la
+     * actual, y en memoria solo hay dos páginas a la vez.
+     */
+    public void forEachInventory(ProductInventoryPageDTO firstPage, Consumer<ProductInventoryResponseDTO> action) {
+        ProductInventoryPageDTO page = firstPage;
+        while (true) {
+            CompletableFuture<ProductPage> next = page.getNextCursor() == null ? null
+                    : productClient.listProducts(page.getNextCursor(), catalogPageSize);
+            page.getItems().forEach(action);
+            if (next == null) return;
+            page = withQuantities(await(next));
         }
     }
 
+    /** 🔹 Tamaño de página al recorrer el catálogo completo */
+    public int getCatalogPageSize() {
+        return catalogPageSize;
+    }
+
     /**
      * 🔹 Obtener un producto específico con su inventario local
      */
     public ProductInventoryResponseDTO getInventoryByProductId(Long productId) {
         log.info("Fetching inventory for productId={}", productId);
 
-        ProductResponse product = getProductById(productId);
+        // La llamada remota y la consulta local se solapan
+        CompletableFuture<ProductResponse> remote = productCache.getProduct(productId);
         Inventory inventory = repository.findByProductId(productId)
                 .orElseGet(() -> new Inventory(null, productId, 0));
+        ProductResponse product = await(remote);
 
         return new ProductInventoryResponseDTO(
                 product.getId(),
                 product.getName(),
                 product.getSku(),
                 product.getPrice(),
-                inventory.getQuantity(),
+                currentQuantity(productId, inventory.getQuantity()),
                 product.getDescription()
         );
     }
 
     /**
-     * 🔹 Actualizar (sumar o restar) cantidad del inventario local
+     * 🔹 Inventario de varios productos: los datos remotos se piden en lotes paralelos, así
+     * que la vista cuesta aproximadamente un viaje de ida y vuelta. Si un lote falla se
+     * devuelve el resto y sus IDs en "unavailable".
+     */
+    public ProductInventoryBatchDTO getInventoriesByProductIds(Collection<Long> productIds) {
+        Set<Long> requested = new LinkedHashSet<>(productIds);
+        if (requested.isEmpty() || requested.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Se deben indicar entre 1 y " + maxBatchSize + " IDs");
+        }
+        log.info("Fetching inventory for {} products", requested.size());
+
+        CompletableFuture<ProductBatch> remote = productCache.getProducts(requested);
+        Map<Long, Integer> quantities = repository.findByProductIdIn(requested).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Inventory::getQuantity, (a, b) -> b));
+        ProductBatch batch = await(remote);
+
+        List<ProductInventoryResponseDTO> items = requested.stream()
+                .filter(batch.products()::containsKey)
+                .map(id -> {
+                    ProductResponse product = batch.products().get(id);
+                    return new ProductInventoryResponseDTO(
+                            product.getId(),
+                            product.getName(),
+                            product.getSku(),
+                            product.getPrice(),
+                            currentQuantity(id, quantities.getOrDefault(id, 0)),
+                            product.getDescription());
+                })
+                .collect(Collectors.toList());
+
+        if (!batch.failed().isEmpty()) {
+            log.warn("Inventory batch returned without {} products: productos-service unavailable",
+                    batch.failed().size());
+        }
+        return ProductInventoryBatchDTO.builder()
+                .items(items)
+                .missing(List.copyOf(batch.missing()))
+                .unavailable(List.copyOf(batch.failed()))
+                .build();
+    }
+
+    /**
+     * 🔹 Actualizar (sumar o restar) cantidad del inventario local con un UPDATE atómico
      */
     public ProductInventoryDTO updateQuantity(Long productId, Integer quantityChange) {
         log.info("Updating local inventory for productId={} with change={}", productId, quantityChange);
 
-        ProductResponse product = getProductById(productId);
+        // Sin producto remoto no se modifica el inventario
+        ProductResponse product = await(productCache.getProduct(productId));
 
-        Inventory inventory = repository.findByProductId(productId)
-                .orElseGet(() -> new Inventory(null, productId, 0));
-
-        int newQuantity = Math.max(0, inventory.getQuantity() + quantityChange);
-        inventory.setQuantity(newQuantity);
-        repository.save(inventory);
+        int newQuantity;
+        try {
+            newQuantity = adjustStock(productId, quantityChange);
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición creó la fila a la vez: ahora el UPDATE la encuentra
+            newQuantity = adjustStock(productId, quantityChange);
+        }
 
         log.info("Inventory for productId={} updated successfully. New quantity={}", productId, newQuantity);
 
@@ -125,66 +199,196 @@ public class InventoryService {
     }
 
     /**
-     * 🔹 Eliminar inventario local y producto del microservicio remoto
+     * 🔹 Eliminar inventario local y producto del microservicio remoto. Un único DELETE
+     * remoto: un 404 ya indica que el producto no existe, sin GET previo.
      */
     public void deleteInventory(Long productId) {
         log.info("Deleting inventory and remote product for productId={}", productId);
 
-        getProductById(productId);
-
-        repository.findByProductId(productId).ifPresent(repository::delete);
-
         try {
-            restTemplate.delete(productServiceUrl + "/" + productId);
-            log.info("Product {} deleted successfully from remote service and local DB", productId);
-        } catch (Exception e) {
+            await(productClient.deleteProduct(productId));
+        } catch (ProductNotFoundException e) {
+            log.warn("Product ID {} not found in remote service", productId);
+            throw e;
+        } catch (RuntimeException e) {
             log.error("Error deleting remote product: {}", e.getMessage());
             throw new RuntimeException("Error eliminando el producto remoto: " + e.getMessage());
         }
+
+        productCache.invalidate(productId);
+        if (stockEngine != null) stockEngine.remove(productId);
+        stockService.delete(productId);
+        log.info("Product {} deleted successfully from remote service and local DB", productId);
     }
 
     /**
-     * 🔹 Registrar una compra: disminuir la cantidad del inventario local
+     * 🔹 Registrar una compra: disminuir la cantidad del inventario local con un UPDATE
+     * condicional, de modo que las compras simultáneas nunca dejan el stock en negativo
      */
     public ProductInventoryDTO purchaseProduct(Long id, Integer quantityToBuy) {
         log.info("Processing purchase for productId={} with quantity={}", id, quantityToBuy);
 
-        ProductResponse product = getProductById(id);
-        Inventory inventory = repository.findByProductId(id)
-                .orElseThrow(() -> new ProductNotFoundException(id));
-
-        if (inventory.getQuantity() < quantityToBuy) {
-            throw new RuntimeException("No hay suficiente inventario disponible para realizar la compra.");
+        if (quantityToBuy == null || quantityToBuy <= 0) {
+            throw new IllegalArgumentException("La cantidad a comprar debe ser mayor que 0");
         }
 
-        inventory.setQuantity(inventory.getQuantity() - quantityToBuy);
-        repository.save(inventory);
+        // Sin producto remoto no se vende: se comprueba antes de tocar el stock
+        ProductResponse product = await(productCache.getProduct(id));
+        int remaining = stockEngine != null ? stockEngine.purchase(id, quantityToBuy)
+                : purchaseCoalescer != null ? purchaseCoalescer.purchase(id, quantityToBuy)
+                : stockService.purchase(id, quantityToBuy);
 
-        log.info("Purchase completed for productId={}. Remaining quantity={}", id, inventory.getQuantity());
+        log.info("Purchase completed for productId={}. Remaining quantity={}", id, remaining);
 
         return new ProductInventoryDTO(
                 product.getId(),
                 product.getName(),
                 product.getSku(),
                 product.getPrice(),
-                inventory.getQuantity(),
+                remaining,
                 product.getDescription()
         );
     }
 
     /**
-     * 🔹 Obtener producto desde el microservicio remoto
+     * 🔹 Comprar un carrito completo: los datos de todos los productos se piden en un lote y
+     * el stock se resta en una sola transacción, todo o nada. Si falta un producto o no hay
+     * stock de alguno, no se compra ninguno.
      */
-    private ProductResponse getProductById(Long productId) {
+    public List<ProductInventoryDTO> purchaseCart(List<CartItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("El carrito debe tener al menos un producto");
+        }
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CartItemDTO item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Cada producto del carrito necesita productId y una cantidad mayor que 0");
+            }
+            try {
+                quantities.merge(item.getProductId(), item.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Cantidad demasiado grande para el producto " + item.getProductId());
+            }
+        }
+        if (quantities.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El carrito admite como máximo " + maxBatchSize + " productos");
+        }
+        log.info("Processing cart purchase with {} products", quantities.size());
+
+        // Sin todos los productos remotos no se vende nada: se comprueba antes de tocar el stock
+        ProductBatch batch = await(productCache.getProducts(quantities.keySet()));
+        if (!batch.missing().isEmpty()) {
+            throw new ProductNotFoundException(batch.missing().iterator().next());
+        }
+        if (!batch.failed().isEmpty()) {
+            throw new ProductServiceException("productos-service no respondió para " + batch.failed().size() + " productos");
+        }
+
+        Map<Long, Integer> remaining = stockEngine != null
+                ? stockEngine.purchaseCart(quantities)
+                : stockService.purchaseCart(quantities);
+        log.info("Cart purchase completed for {} products", quantities.size());
+
+        return quantities.keySet().stream()
+                .map(id -> {
+                    ProductResponse product = batch.products().get(id);
+                    return new ProductInventoryDTO(
+                            product.getId(),
+                            product.getName(),
+                            product.getSku(),
+                            product.getPrice(),
+                            remaining.get(id),
+                            product.getDescription());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 🔹 Apartar stock de un producto durante un tiempo (ttlSeconds, o el de por defecto).
+     * Lo apartado deja de estar disponible para la venta hasta confirmar, liberar o caducar.
+     */
+    public ReservationDTO reserveStock(Long productId, Integer quantity, Integer ttlSeconds) {
+        log.info("Reserving stock for productId={} quantity={} ttlSeconds={}", productId, quantity, ttlSeconds);
+
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser mayor que 0");
+        }
+        // Sin producto remoto no se reserva: se comprueba antes de tocar el stock
+        await(productCache.getProduct(productId));
+        return reservationService.reserve(productId, quantity,
+                ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds));
+    }
+
+    /** 🔹 Confirmar una reserva: lo apartado queda vendido */
+    public ReservationDTO confirmReservation(String reservationId) {
+        log.info("Confirming reservation {}", reservationId);
+        return reservationService.confirm(reservationId);
+    }
+
+    /** 🔹 Liberar una reserva: lo apartado vuelve a estar disponible */
+    public ReservationDTO releaseReservation(String reservationId) {
+        log.info("Releasing reservation {}", reservationId);
+        return reservationService.release(reservationId);
+    }
+
+    /** 🔹 Existencias, apartado en reservas y disponible para la venta de un producto */
+    public StockAvailabilityDTO getAvailability(Long productId) {
+        int available = currentQuantity(productId, repository.findQuantityByProductId(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId)));
+        int reserved = reservationService.held(productId);
+        return StockAvailabilityDTO.builder()
+                .productId(productId)
+                .onHand(available + reserved)
+                .reserved(reserved)
+                .available(available)
+                .build();
+    }
+
+    private int adjustStock(Long productId, int change) {
+        return stockEngine != null ? stockEngine.adjust(productId, change) : stockService.adjust(productId, change);
+    }
+
+    /** 🔹 Cantidad vigente: con el motor en memoria, la base de datos va por detrás hasta el siguiente volcado */
+    private int currentQuantity(Long productId, int persisted) {
+        return stockEngine == null ? persisted : stockEngine.quantity(productId).orElse(persisted);
+    }
+
+    /** 🔹 Combinar una página de productos con las filas de inventario de esos IDs */
+    private ProductInventoryPageDTO withQuantities(ProductPage page) {
+        List<ProductResponse> products = page.items() == null ? List.of() : page.items();
+        productCache.putAll(products);
+
+        Map<Long, Integer> quantities = products.isEmpty() ? Map.of()
+                : repository.findByProductIdIn(products.stream().map(ProductResponse::getId).toList()).stream()
+                        .collect(Collectors.toMap(Inventory::getProductId, Inventory::getQuantity, (a, b) -> b));
+
+        List<ProductInventoryResponseDTO> items = products.stream()
+                .map(product -> new ProductInventoryResponseDTO(
+                        product.getId(),
+                        product.getName(),
+                        product.getSku(),
+                        product.getPrice(),
+                        currentQuantity(product.getId(), quantities.getOrDefault(product.getId(), 0)),
+                        product.getDescription()))
+                .collect(Collectors.toList());
+
+        return ProductInventoryPageDTO.builder()
+                .items(items)
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
+    /**
+     * 🔹 Esperar una llamada a productos-service y relanzar su causa (ProductNotFoundException,
+     * ProductServiceException...) en lugar del envoltorio de CompletableFuture
+     */
+    private static <T> T await(CompletableFuture<T> call) {
         try {
-            ProductResponse product = restTemplate.getForObject(
-                    productServiceUrl + "/" + productId, ProductResponse.class);
-            if (product == null)
-                throw new ProductNotFoundException(productId);
-            return product;
-        } catch (Exception e) {
-            log.warn("Product ID {} not found in remote service", productId);
-            throw new ProductNotFoundException(productId);
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = ProductClient.unwrap(e);
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new ProductServiceException("Error llamando a productos-service: " + cause.getMessage(), cause);
         }
     }
 }
@@ -0,0 +1,108 @@
+package com.example.demo.application.service;
+
+import com.example.demo.infrastructure.journal.InventorySnapshot;
+import com.example.demo.infrastructure.journal.MovementJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranque y mantenimiento del diario de movimientos. Al arrancar, la base de datos (en
+ * memoria) se reconstruye con el último snapshot más los segmentos posteriores; en el
+ * primer arranque se guarda como snapshot inicial lo que haya. Después se compacta cada
+ * snapshot-interval y se fuerza a disco cada force-interval.
+ */
+@Service
+@ConditionalOnProperty(name = "inventory.journal.enabled", havingValue = "true")
+public class MovementJournalService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MovementJournalService.class);
+
+    private final MovementJournal journal;
+    private final StockService stockService;
+    private final Duration snapshotInterval;
+    private final Duration forceInterval;
+
+    private ScheduledExecutorService maintenance;
+
+    public MovementJournalService(
+            MovementJournal journal,
+            StockService stockService,
+            @Value("${inventory.journal.snapshot-interval:5m}") Duration snapshotInterval,
+            @Value("${inventory.journal.force-interval:1s}") Duration forceInterval) {
+        this.journal = journal;
+        this.stockService = stockService;
+        this.snapshotInterval = snapshotInterval;
+        this.forceInterval = forceInterval;
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            long started = System.nanoTime();
+            InventorySnapshot state = journal.replay();
+            if (state == null) {
+                journal.writeSnapshot(stockService.currentState(), 0);
+                log.info("Inventory journal initialised from the database");
+            } else {
+                stockService.restoreState(state);
+                log.info("Inventory restored from journal in {} ms: {} products, {} reservations",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                        state.quantities().size(), state.reservations().size());
+            }
+            journal.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el diario de movimientos", e);
+        }
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                journal.compact();
+            } catch (IOException | RuntimeException e) {
+                // Se reintenta en la siguiente pasada: los segmentos siguen en disco
+                log.error("Inventory journal compaction failed: {}", e.getMessage());
+            }
+        }, snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(journal::force,
+                forceInterval.toMillis(), forceInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (maintenance == null) return;
+        maintenance.shutdown();
+        maintenance = null;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Could not close inventory journal: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return maintenance != null;
+    }
+
+    // Antes que el motor de stock y las reservas, que leen la base de datos ya reconstruida;
+    // se detiene después, cuando ya no se anotan movimientos
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.application.service;
+
+import com.example.demo.application.dto.CacheStatsDTO;
+import com.example.demo.application.dto.ProductResponse;
+import com.example.demo.infrastructure.client.ProductClient;
+import com.example.demo.infrastructure.client.ProductClient.ProductBatch;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineStatsCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Caché local de los datos de productos-service (nombre, SKU, precio, descripción).
+ * <p>
+ * Pasado {@code refresh-after} una lectura devuelve el valor guardado y lo recarga en
+ * segundo plano (stale-while-revalidate); si la recarga falla se sigue sirviendo el valor
+ * anterior hasta {@code ttl}. Los IDs inexistentes se recuerdan durante {@code negative-ttl}
+ * para no repetir el 404. Métricas: cache_gets_total{cache="inventory.products"}, etc.
+ */
+@Service
+public class ProductCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheService.class);
+
+    public static final String CACHE_NAME = "inventory.products";
+
+    private final AsyncLoadingCache<Long, Optional<ProductResponse>> cache;
+
+    public ProductCacheService(
+            ProductClient productClient,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.product-cache.maximum-size:10000}") long maximumSize,
+            @Value("${inventory.product-cache.ttl:1h}") Duration ttl,
+            @Value("${inventory.product-cache.refresh-after:5m}") Duration refreshAfter,
+            @Value("${inventory.product-cache.negative-ttl:30s}") Duration negativeTtl) {
+        CaffeineStatsCounter statsCounter = new CaffeineStatsCounter(meterRegistry, CACHE_NAME);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ProductExpiry(ttl, negativeTtl))
+                .refreshAfterWrite(refreshAfter)
+                .recordStats(() -> statsCounter)
+                .buildAsync(new ProductLoader(productClient));
+        statsCounter.registerSizeMetric(cache.synchronous());
+    }
+
+    /** 🔹 Un producto; falla con ProductNotFoundException si productos-service no lo conoce */
+    public CompletableFuture<ProductResponse> getProduct(Long id) {
+        return cache.get(id).thenApply(product -> product.orElseThrow(() -> new ProductNotFoundException(id)));
+    }
+
+    /**
+     * 🔹 Varios productos: solo se piden a productos-service los que no están en caché.
+     * Los IDs de un lote que falló no se guardan y se devuelven en "failed".
+     */
+    public CompletableFuture<ProductBatch> getProducts(Collection<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        return cache.getAll(requested).thenApply(cached -> {
+            Map<Long, ProductResponse> products = new LinkedHashMap<>();
+            Set<Long> missing = new LinkedHashSet<>();
+            Set<Long> failed = new LinkedHashSet<>();
+            for (Long id : requested) {
+                Optional<ProductResponse> product = cached.get(id);
+                if (product == null) {
+                    failed.add(id);
+                } else if (product.isPresent()) {
+                    products.put(id, product.get());
+                } else {
+                    missing.add(id);
+                }
+            }
+            return new ProductBatch(products, missing, failed);
+        });
+    }
+
+    /** 🔹 Guardar productos recién leídos por otra vía (p. ej. el listado completo) */
+    public void putAll(Collection<ProductResponse> products) {
+        for (ProductResponse product : products) {
+            cache.put(product.getId(), CompletableFuture.completedFuture(Optional.of(product)));
+        }
+    }
+
+    /** 🔹 Olvidar un producto (p. ej. tras borrarlo) */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /** 🔹 Estadísticas de aciertos, fallos y desalojos de la caché */
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return CacheStatsDTO.builder()
+                .size(cache.synchronous().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    /** Carga (y recarga) desde productos-service; un 404 se guarda como Optional.empty() */
+    private record ProductLoader(ProductClient productClient) implements AsyncCacheLoader<Long, Optional<ProductResponse>> {
+
+        @Override
+        public CompletableFuture<Optional<ProductResponse>> asyncLoad(Long id, Executor executor) {
+            return productClient.getProduct(id)
+                    .thenApply(Optional::of)
+                    .exceptionallyCompose(error -> ProductClient.unwrap(error) instanceof ProductNotFoundException
+                            ? CompletableFuture.completedFuture(Optional.empty())
+                            : CompletableFuture.failedFuture(error));
+        }
+
+        @Override
+        public CompletableFuture<Map<Long, Optional<ProductResponse>>> asyncLoadAll(
+                Set<? extends Long> ids, Executor executor) {
+            return productClient.getProducts(new ArrayList<Long>(ids)).thenApply(batch -> {
+                Map<Long, Optional<ProductResponse>> loaded = new HashMap<>();
+                batch.products().forEach((id, product) -> loaded.put(id, Optional.of(product)));
+                batch.missing().forEach(id -> loaded.put(id, Optional.empty()));
+                if (!batch.failed().isEmpty()) {
+                    log.warn("{} products not cached: productos-service unavailable", batch.failed().size());
+                }
+                return loaded;
+            });
+        }
+    }
+
+    /** Caducidad desde la última escritura (carga o recarga): corta para los IDs inexistentes */
+    private record ProductExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Long, Optional<ProductResponse>> {
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<ProductResponse> product, long currentTime) {
+            return (product.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<ProductResponse> product, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(id, product, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<ProductResponse> product, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.model.Inventory;
+import com.example.demo.domain.model.StockJournalCheckpoint;
+import com.example.demo.domain.model.StockReservation;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.domain.repository.StockJournalCheckpointRepository;
+import com.example.demo.domain.repository.StockReservationRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.journal.InventorySnapshot;
+import com.example.demo.infrastructure.journal.Movement;
+import com.example.demo.infrastructure.journal.Movement.Adjusted;
+import com.example.demo.infrastructure.journal.Movement.Checkpoint;
+import com.example.demo.infrastructure.journal.Movement.Deleted;
+import com.example.demo.infrastructure.journal.Movement.Reason;
+import com.example.demo.infrastructure.journal.Movement.Reserved;
+import com.example.demo.infrastructure.journal.Movement.Unreserved;
+import com.example.demo.infrastructure.journal.MovementJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Cambios de stock con un único UPDATE condicional, sin leer y luego guardar: dos compras
+ * simultáneas del mismo producto se serializan en el bloqueo de la fila y nunca venden
+ * más de lo que hay. Cada método es una transacción corta que no espera a productos-service.
+ * <p>
+ * Con el diario de movimientos activo, cada cambio confirmado se anota en él
+ * ({@link MovementJournal#appendOnCommit}): es lo que permite reconstruir la base de datos
+ * en memoria al arrancar.
+ */
+@Service
+public class StockService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockService.class);
+
+    /** Resultado de una compra de un lote: aceptada con el stock que deja, o rechazada con el que había */
+    public record Allocation(boolean accepted, int stock) {
+    }
+
+    private final InventoryRepository repository;
+    private final StockJournalCheckpointRepository checkpointRepository;
+    private final StockReservationRepository reservationRepository;
+    // null si el diario de movimientos está desactivado
+    private final MovementJournal journal;
+
+    public StockService(InventoryRepository repository, StockJournalCheckpointRepository checkpointRepository,
+                        StockReservationRepository reservationRepository, Optional<MovementJournal> journal) {
+        this.repository = repository;
+        this.checkpointRepository = checkpointRepository;
+        this.reservationRepository = reservationRepository;
+        this.journal = journal.orElse(null);
+    }
+
+    /**
+     * 🔹 Restar la cantidad comprada y devolver lo que queda. Distingue producto sin
+     * inventario (ProductNotFoundException) de stock insuficiente (InsufficientStockException).
+     */
+    @Transactional
+    public int purchase(Long productId, int quantity) {
+        if (repository.decrementIfAvailable(productId, quantity) == 0) {
+            int available = repository.findQuantityByProductId(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
+            log.info("Purchase rejected for productId={}: requested={}, available={}", productId, quantity, available);
+            throw new InsufficientStockException(productId, quantity, available);
+        }
+        record(new Adjusted(productId, -quantity, Reason.PURCHASE));
+        // Dentro de la transacción la fila sigue bloqueada: es el valor que dejó esta compra
+        return repository.findQuantityByProductId(productId).orElseThrow();
+    }
+
+    /**
+     * 🔹 Comprar varios productos a la vez: todo o nada. Las filas se actualizan en orden
+     * ascendente de productId, así que dos carritos que compartan productos bloquean en el
+     * mismo orden y no se interbloquean. Si un producto falla, la excepción deshace las
+     * compras anteriores del carrito. Devuelve el stock que queda de cada producto.
+     */
+    @Transactional
+    public Map<Long, Integer> purchaseCart(SortedMap<Long, Integer> items) {
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            Long productId = item.getKey();
+            int quantity = item.getValue();
+            if (repository.decrementIfAvailable(productId, quantity) == 0) {
+                int available = repository.findQuantityByProductId(productId)
+                        .orElseThrow(() -> new ProductNotFoundException(productId));
+                log.info("Cart rejected at productId={}: requested={}, available={}", productId, quantity, available);
+                throw new InsufficientStockException(productId, quantity, available);
+            }
+            record(new Adjusted(productId, -quantity, Reason.PURCHASE));
+        }
+        // Las filas siguen bloqueadas por esta transacción: una sola lectura para todas
+        Map<Long, Integer> remaining = new TreeMap<>();
+        repository.findByProductIdIn(items.keySet())
+                .forEach(inventory -> remaining.put(inventory.getProductId(), inventory.getQuantity()));
+        return remaining;
+    }
+
+    /**
+     * 🔹 Varias compras de un mismo producto con una lectura y un UPDATE: se reparte el stock
+     * en orden de llegada y cada compra se acepta o se rechaza por sí sola.
+     */
+    @Transactional
+    public List<Allocation> purchaseAll(Long productId, List<Integer> quantities) {
+        int stock = repository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId))
+                .getQuantity();
+
+        List<Allocation> allocations = new ArrayList<>(quantities.size());
+        int sold = 0;
+        for (int quantity : quantities) {
+            boolean accepted = quantity <= stock;
+            if (accepted) {
+                stock -= quantity;
+                sold += quantity;
+            }
+            allocations.add(new Allocation(accepted, stock));
+        }
+        // La fila está bloqueada: la condición solo protege frente a escritores sin bloqueo
+        if (sold > 0 && repository.decrementIfAvailable(productId, sold) == 0) {
+            throw new IllegalStateException("El stock del producto " + productId + " cambió durante el lote");
+        }
+        if (sold > 0) record(new Adjusted(productId, -sold, Reason.PURCHASE));
+        return allocations;
+    }
+
+    /**
+     * 🔹 Sumar o restar cantidad (sin bajar de 0) y devolver la nueva; crea la fila si el
+     * producto aún no tiene inventario. Se lee antes con bloqueo para anotar el cambio real.
+     */
+    @Transactional
+    public int adjust(Long productId, int change) {
+        Optional<Inventory> current = repository.findByProductIdForUpdate(productId);
+        if (current.isEmpty()) {
+            // Si otra petición la crea a la vez, la restricción única hace fallar esta inserción
+            // (DataIntegrityViolationException) y quien llama puede repetir
+            Inventory created = repository.saveAndFlush(new Inventory(null, productId, Math.max(0, change)));
+            record(new Adjusted(productId, created.getQuantity(), Reason.ADJUSTMENT));
+            return created.getQuantity();
+        }
+        int before = current.get().getQuantity();
+        repository.adjustQuantity(productId, change);
+        int after = repository.findQuantityByProductId(productId).orElseThrow();
+        if (after != before) record(new Adjusted(productId, after - before, Reason.ADJUSTMENT));
+        return after;
+    }
+
+    /** 🔹 Borrar el inventario del producto, si tiene */
+    @Transactional
+    public void delete(Long productId) {
+        repository.findByProductId(productId).ifPresent(inventory -> {
+            repository.delete(inventory);
+            record(new Deleted(productId));
+        });
+    }
+
+    /** 🔹 Apartar stock: se resta como una compra y se guarda la reserva en la misma transacción */
+    @Transactional
+    public int reserve(StockReservation reservation) {
+        int remaining = purchase(reservation.getProductId(), reservation.getQuantity());
+        saveReservation(reservation);
+        return remaining;
+    }
+
+    /**
+     * 🔹 Devolver al inventario el stock de reservas liberadas o caducadas (un UPDATE por
+     * producto) y borrarlas, en una transacción. No recrea inventarios ya eliminados.
+     */
+    @Transactional
+    public void releaseReservations(Collection<StockReservation> reservations) {
+        Map<Long, Integer> returned = new TreeMap<>();
+        reservations.forEach(reservation ->
+                returned.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum));
+        returned.forEach((productId, quantity) -> {
+            if (repository.adjustQuantity(productId, quantity) > 0) {
+                record(new Adjusted(productId, quantity, Reason.RELEASE));
+            }
+        });
+        deleteReservations(reservations);
+    }
+
+    /** 🔹 Guardar una reserva cuyo stock ya se restó en otra parte (motor en memoria) */
+    @Transactional
+    public void saveReservation(StockReservation reservation) {
+        reservationRepository.save(reservation);
+        record(new Reserved(reservation.getId(), reservation.getProductId(), reservation.getQuantity(),
+                reservation.getExpiresAt().toEpochMilli()));
+    }
+
+    /** 🔹 Borrar reservas sin tocar el stock (confirmación, o el motor devuelve el stock) */
+    @Transactional
+    public void deleteReservations(Collection<StockReservation> reservations) {
+        reservationRepository.deleteByIdIn(reservations.stream().map(StockReservation::getId).toList());
+        reservations.forEach(reservation -> record(new Unreserved(reservation.getId())));
+    }
+
+    /** 🔹 Reservas guardadas, para volver a programar su caducidad al arrancar */
+    @Transactional(readOnly = true)
+    public List<StockReservation> reservations() {
+        return reservationRepository.findAll();
+    }
+
+    /**
+     * 🔹 Aplicar movimientos acumulados del diario (un UPDATE por producto) y guardar hasta
+     * dónde llegan, todo en una transacción
+     */
+    @Transactional
+    public void applyMovements(Map<Long, Integer> deltas, long epoch, int position) {
+        deltas.forEach((productId, delta) -> {
+            if (delta != 0 && repository.adjustQuantity(productId, delta) > 0) {
+                record(new Adjusted(productId, delta, Reason.ENGINE));
+            }
+        });
+        checkpointRepository.save(new StockJournalCheckpoint(StockJournalCheckpoint.ID, epoch, position));
+        record(new Checkpoint(epoch, position));
+    }
+
+    /** 🔹 Último punto del diario aplicado en la base de datos */
+    @Transactional(readOnly = true)
+    public Optional<StockJournalCheckpoint> journalCheckpoint() {
+        return checkpointRepository.findById(StockJournalCheckpoint.ID);
+    }
+
+    /** 🔹 Estado actual de la base de datos, para el primer snapshot del diario de movimientos */
+    @Transactional(readOnly = true)
+    public InventorySnapshot currentState() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        repository.findAll().forEach(inventory -> quantities.put(inventory.getProductId(), inventory.getQuantity()));
+        List<Reserved> reservations = reservationRepository.findAll().stream()
+                .map(reservation -> new Reserved(reservation.getId(), reservation.getProductId(),
+                        reservation.getQuantity(), reservation.getExpiresAt().toEpochMilli()))
+                .toList();
+        Checkpoint checkpoint = journalCheckpoint()
+                .map(saved -> new Checkpoint(saved.getEpoch(), saved.getPosition()))
+                .orElse(null);
+        return InventorySnapshot.of(quantities, reservations, checkpoint);
+    }
+
+    /**
+     * 🔹 Sustituir el contenido de la base de datos por el estado reconstruido desde el
+     * diario de movimientos (al arrancar, antes de atender peticiones)
+     */
+    @Transactional
+    public void restoreState(InventorySnapshot state) {
+        repository.deleteAllInBatch();
+        reservationRepository.deleteAllInBatch();
+        checkpointRepository.deleteAllInBatch();
+
+        repository.saveAll(state.quantities().entrySet().stream()
+                .map(quantity -> new Inventory(null, quantity.getKey(), quantity.getValue()))
+                .toList());
+        reservationRepository.saveAll(state.reservations().stream()
+                .map(reserved -> new StockReservation(reserved.reservationId(), reserved.productId(),
+                        reserved.quantity(), Instant.ofEpochMilli(reserved.expiresAtMillis())))
+                .toList());
+        if (state.checkpoint() != null) {
+            checkpointRepository.save(new StockJournalCheckpoint(StockJournalCheckpoint.ID,
+                    state.checkpoint().epoch(), state.checkpoint().position()));
+        }
+    }
+
+    private void record(Movement movement) {
+        if (journal == null) return;
+        // El diario fija el orden de commit antes de confirmar: las escrituras pendientes se
+        // vuelcan ya para que sus bloqueos de fila no se esperen reteniendo ese orden
+        repository.flush();
+        journal.appendOnCommit(movement);
+    }
+}
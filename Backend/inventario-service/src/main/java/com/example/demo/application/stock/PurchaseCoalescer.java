@@ -0,0 +1,156 @@
+package com.example.demo.application.stock;
+
+import com.example.demo.application.service.StockService;
+import com.example.demo.application.service.StockService.Allocation;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrupa las compras simultáneas de un mismo producto (inventory.purchase-batching.enabled).
+ * <p>
+ * La primera compra de un producto abre un lote y espera {@code window} o a que se llene
+ * ({@code max-batch-size}); las que llegan mientras tanto se suman al lote y esperan su
+ * resultado. Al cerrarse, el mismo hilo de la primera compra ejecuta el lote en una sola
+ * transacción ({@link StockService#purchaseAll}): una lectura con bloqueo, el stock repartido
+ * en orden de llegada y un único UPDATE. Cada compra recibe su propio resultado.
+ */
+@Service
+@ConditionalOnProperty(name = "inventory.purchase-batching.enabled", havingValue = "true")
+public class PurchaseCoalescer {
+
+    private final StockService stockService;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final Map<Long, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public PurchaseCoalescer(
+            StockService stockService,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.purchase-batching.window:2ms}") Duration window,
+            @Value("${inventory.purchase-batching.max-batch-size:64}") int maxBatchSize) {
+        this.stockService = stockService;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("inventory.purchase.batch.size")
+                .description("Compras agrupadas en cada transacción")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔹 Comprar a través del lote abierto del producto y devolver el stock que deja la
+     * compra. Sin inventario: ProductNotFoundException; sin stock: InsufficientStockException.
+     */
+    public int purchase(Long productId, int quantity) {
+        Purchase purchase = new Purchase(quantity, new CompletableFuture<>());
+        Batch[] joined = new Batch[1];
+        boolean[] leader = new boolean[1];
+        openBatches.compute(productId, (id, open) -> {
+            if (open != null && open.join(purchase)) {
+                joined[0] = open;
+                return open;
+            }
+            Batch fresh = new Batch(maxBatchSize);
+            fresh.join(purchase);
+            joined[0] = fresh;
+            leader[0] = true;
+            return fresh;
+        });
+
+        if (leader[0]) {
+            run(productId, joined[0]);
+        }
+        try {
+            return purchase.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /** 🔹 Esperar a que el lote se llene o venza la ventana, cerrarlo y ejecutarlo */
+    private void run(Long productId, Batch batch) {
+        List<Purchase> purchases = batch.awaitAndClose(window);
+        openBatches.remove(productId, batch);
+        batchSizes.record(purchases.size());
+
+        try {
+            List<Allocation> allocations = stockService.purchaseAll(productId,
+                    purchases.stream().map(Purchase::quantity).toList());
+            for (int i = 0; i < purchases.size(); i++) {
+                Purchase purchase = purchases.get(i);
+                Allocation allocation = allocations.get(i);
+                if (allocation.accepted()) {
+                    purchase.result().complete(allocation.stock());
+                } else {
+                    purchase.result().completeExceptionally(
+                            new InsufficientStockException(productId, purchase.quantity(), allocation.stock()));
+                }
+            }
+        } catch (RuntimeException e) {
+            purchases.forEach(purchase -> purchase.result().completeExceptionally(e));
+        }
+    }
+
+    private record Purchase(int quantity, CompletableFuture<Integer> result) {
+    }
+
+    /**
+     * Compras pendientes de un producto; admite nuevas hasta llenarse o cerrarse. Con
+     * ReentrantLock y no synchronized: esperar la ventana no ancla un hilo virtual.
+     */
+    private static final class Batch {
+
+        private final int capacity;
+        private final List<Purchase> purchases = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition full = lock.newCondition();
+        private boolean closed;
+
+        Batch(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean join(Purchase purchase) {
+            lock.lock();
+            try {
+                if (closed || purchases.size() >= capacity) return false;
+                purchases.add(purchase);
+                if (purchases.size() >= capacity) full.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Purchase> awaitAndClose(Duration window) {
+            lock.lock();
+            try {
+                long remaining = window.toNanos();
+                while (purchases.size() < capacity && remaining > 0) {
+                    remaining = full.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                closed = true;
+                lock.unlock();
+            }
+            return List.copyOf(purchases);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.demo.application.stock;
+
+import com.example.demo.application.service.StockService;
+import com.example.demo.domain.model.StockJournalCheckpoint;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.journal.StockJournal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de stock en memoria para productos muy demandados (inventory.stock-engine.enabled).
+ * <p>
+ * El stock de cada producto vive en un {@link StripedStock}: una compra es un CAS en
+ * memoria más un registro en el diario mapeado ({@link StockJournal}), sin ir a la base de
+ * datos. Cada {@code flush-interval} los movimientos del diario se suman por producto y se
+ * aplican con un UPDATE por producto, junto con el punto del diario al que llegan; al
+ * arrancar se aplica lo que el diario tenga por encima de ese punto. Una compra confirmada
+ * ya está en el diario, así que sobrevive a la caída del proceso.
+ * <p>
+ * Ese punto se guarda en la base de datos, así que tiene que sobrevivir al reinicio con
+ * ella: con la base de datos en memoria hace falta el diario de movimientos
+ * (inventory.journal.enabled), que la reconstruye con el punto incluido. Si al arrancar
+ * falta, el diario de stock se descarta y las compras sin volcar se pierden.
+ */
+@Service
+@ConditionalOnProperty(name = "inventory.stock-engine.enabled", havingValue = "true")
+public class StockEngine implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StockEngine.class);
+
+    private final InventoryRepository repository;
+    private final StockService stockService;
+    private final StockJournal journal;
+    private final Duration flushInterval;
+    private final int stripes;
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+    // Posición del diario ya aplicada en la base de datos
+    private volatile int appliedPosition;
+
+    public StockEngine(
+            InventoryRepository repository,
+            StockService stockService,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.stock-engine.stripes:0}") int stripes,
+            @Value("${inventory.stock-engine.flush-interval:200ms}") Duration flushInterval,
+            @Value("${inventory.stock-engine.journal.path:data/inventory-stock.journal}") Path journalPath,
+            @Value("${inventory.stock-engine.journal.capacity:64MB}") DataSize journalCapacity) {
+        this.repository = repository;
+        this.stockService = stockService;
+        this.flushInterval = flushInterval;
+        // Por defecto, la potencia de 2 siguiente al doble de núcleos
+        this.stripes = Integer.highestOneBit(Math.max(1,
+                stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors() * 2) * 2 - 1);
+        try {
+            this.journal = new StockJournal(journalPath, Math.toIntExact(journalCapacity.toBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de stock " + journalPath, e);
+        }
+
+        Gauge.builder("inventory.stock.engine.pending", this,
+                        engine -> (engine.journal.position() - engine.appliedPosition) / StockJournal.RECORD_SIZE)
+                .description("Movimientos de stock en el diario pendientes de aplicar en la base de datos")
+                .register(meterRegistry);
+        Gauge.builder("inventory.stock.engine.products", stocks, Map::size)
+                .description("Productos con stock en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔹 Restar la cantidad comprada y devolver el stock que queda (lectura aproximada si
+     * hay otras compras en curso). Sin inventario: ProductNotFoundException; sin stock
+     * suficiente: InsufficientStockException.
+     */
+    public int purchase(Long productId, int quantity) {
+        StripedStock stock = stockOf(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+        if (!stock.tryTake(quantity)) {
+            throw new InsufficientStockException(productId, quantity, stock.available());
+        }
+        record(productId, -quantity, stock);
+        return stock.available();
+    }
+
+    /**
+     * 🔹 Comprar varios productos a la vez, todo o nada: se resta en memoria producto a
+     * producto y, si uno no tiene stock, se devuelve lo ya restado. Los movimientos del
+     * carrito entran juntos en el diario. Devuelve el stock que queda de cada producto.
+     */
+    public Map<Long, Integer> purchaseCart(SortedMap<Long, Integer> items) {
+        // Con el carrito en media capacidad, un diario lleno siempre se puede reiniciar para que quepa
+        if (items.size() * StockJournal.RECORD_SIZE > journal.capacity() / 2) {
+            throw new IllegalArgumentException("El carrito no cabe en el diario de stock");
+        }
+        Map<Long, StripedStock> taken = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> item : items.entrySet()) {
+                Long productId = item.getKey();
+                StripedStock stock = stockOf(productId)
+                        .orElseThrow(() -> new ProductNotFoundException(productId));
+                if (!stock.tryTake(item.getValue())) {
+                    throw new InsufficientStockException(productId, item.getValue(), stock.available());
+                }
+                taken.put(productId, stock);
+            }
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+            items.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+            while (!journal.appendAll(deltas)) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            taken.forEach((productId, stock) -> stock.add(items.get(productId)));
+            throw e;
+        }
+
+        Map<Long, Integer> remaining = new TreeMap<>();
+        taken.forEach((productId, stock) -> remaining.put(productId, stock.available()));
+        return remaining;
+    }
+
+    /** 🔹 Sumar o restar cantidad sin bajar de 0; crea el inventario si el producto no tiene */
+    public int adjust(Long productId, int change) {
+        StripedStock stock = stockOf(productId).orElse(null);
+        if (stock == null) {
+            // Producto sin inventario: la fila se crea en la base de datos y se carga después
+            stockService.adjust(productId, change);
+            return stockOf(productId).orElseThrow().available();
+        }
+
+        int applied = change >= 0 ? change : -stock.takeUpTo(-change);
+        if (change >= 0) stock.add(change);
+        if (applied != 0) record(productId, applied, stock);
+        return stock.available();
+    }
+
+    /** 🔹 Devolver stock apartado; no crea el inventario si el producto ya no tiene */
+    public void restore(Long productId, int quantity) {
+        stockOf(productId).ifPresent(stock -> {
+            stock.add(quantity);
+            record(productId, quantity, stock);
+        });
+    }
+
+    /** 🔹 Stock en memoria del producto, si está cargado */
+    public OptionalInt quantity(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        return stock == null ? OptionalInt.empty() : OptionalInt.of(stock.available());
+    }
+
+    /** 🔹 Dejar de seguir un producto (se va a borrar su inventario) tras aplicar lo pendiente */
+    public void remove(Long productId) {
+        flush();
+        stocks.remove(productId);
+    }
+
+    /**
+     * 🔹 Aplicar en la base de datos los movimientos del diario que falten. Si ya no queda
+     * nada pendiente y el diario va por la mitad, se reinicia.
+     */
+    public synchronized void flush() {
+        int end = journal.position();
+        long epoch = journal.epoch();
+        if (end > appliedPosition) {
+            Map<Long, Integer> deltas = journal.deltas(appliedPosition, end);
+            journal.force();
+            stockService.applyMovements(deltas, epoch, end);
+            appliedPosition = end;
+        }
+        if (end > journal.capacity() / 2 && journal.reset(end)) {
+            appliedPosition = StockJournal.HEADER_SIZE;
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        recover();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-engine-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // Se reintenta en la siguiente pasada: el diario conserva los movimientos
+                log.error("Stock engine flush failed: {}", e.getMessage());
+            }
+        }, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Stock engine started ({} stripes per product, flush every {} ms)", stripes, flushInterval.toMillis());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (flusher == null) return;
+        flusher.shutdown();
+        flusher = null;
+        flush();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Error closing stock journal: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return flusher != null;
+    }
+
+    // Arranca antes que el servidor web (recuperación antes de atender) y se detiene después
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * 🔹 Aplicar lo que el diario tenga por encima del punto guardado. Sin un punto de esta
+     * época ni de la anterior (base de datos nueva o sembrada de nuevo) no se sabe qué parte
+     * del diario ya está en la base de datos: se descarta el diario en vez de aplicar sus
+     * movimientos otra vez, y se guarda el punto de partida.
+     */
+    private void recover() {
+        long epoch = journal.epoch();
+        Optional<StockJournalCheckpoint> checkpoint = stockService.journalCheckpoint();
+        if (checkpoint.isPresent() && checkpoint.get().getEpoch() == epoch) {
+            appliedPosition = checkpoint.get().getPosition();
+        } else if (checkpoint.isPresent() && checkpoint.get().getEpoch() == epoch - 1) {
+            // El diario se reinició después de aplicar toda la época anterior
+            appliedPosition = StockJournal.HEADER_SIZE;
+        } else {
+            int discarded = (journal.position() - StockJournal.HEADER_SIZE) / StockJournal.RECORD_SIZE;
+            if (discarded > 0) {
+                log.warn("No stock journal checkpoint in the database: discarding {} journal movements", discarded);
+                journal.reset(journal.position());
+            }
+            appliedPosition = StockJournal.HEADER_SIZE;
+            stockService.applyMovements(Map.of(), journal.epoch(), appliedPosition);
+        }
+        int pending = (journal.position() - appliedPosition) / StockJournal.RECORD_SIZE;
+        if (pending > 0) {
+            log.info("Recovering {} stock movements from journal", pending);
+        }
+        flush();
+    }
+
+    private Optional<StripedStock> stockOf(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        if (stock != null) return Optional.of(stock);
+        return Optional.ofNullable(stocks.computeIfAbsent(productId, id -> repository.findQuantityByProductId(id)
+                .map(quantity -> new StripedStock(quantity, stripes))
+                .orElse(null)));
+    }
+
+    /** 🔹 Anotar el movimiento en el diario; si está lleno, se aplica lo pendiente y se reinicia */
+    private void record(Long productId, int delta, StripedStock stock) {
+        try {
+            while (!journal.append(productId, delta)) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            // Sin registro en el diario no se confirma el movimiento
+            if (delta < 0) stock.add(-delta);
+            else stock.takeUpTo(delta);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.application.stock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stock de un producto repartido en varias celdas atómicas, cada una en su propia línea
+ * de caché. Cada hilo resta con un CAS en "su" celda, así que las compras simultáneas de
+ * un mismo producto no compiten por la misma posición de memoria.
+ * <p>
+ * Cuando la celda del hilo no alcanza, se toma el cerrojo, se vacían todas las celdas y
+ * se decide sobre el total; lo que queda se vuelve a repartir. El stock nunca baja de 0 y
+ * una compra solo se rechaza si en ese momento no hay stock suficiente en total.
+ */
+public class StripedStock {
+
+    // 16 ints = 64 bytes: cada celda ocupa su propia línea de caché
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+
+    public StripedStock(int quantity, int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("El número de celdas debe ser potencia de 2: " + stripes);
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+        distribute(quantity);
+    }
+
+    /** 🔹 Restar la cantidad si hay suficiente; false si no alcanza */
+    public boolean tryTake(int quantity) {
+        int cell = home();
+        for (int current = cells.get(cell); current >= quantity; current = cells.get(cell)) {
+            if (cells.compareAndSet(cell, current, current - quantity)) return true;
+        }
+        return takeSlow(quantity);
+    }
+
+    /** 🔹 Restar como mucho la cantidad indicada; devuelve lo que se restó */
+    public synchronized int takeUpTo(int quantity) {
+        int total = drain();
+        int taken = Math.min(total, quantity);
+        distribute(total - taken);
+        return taken;
+    }
+
+    /** 🔹 Sumar stock (reposición o devolución) */
+    public void add(int quantity) {
+        cells.addAndGet(home(), quantity);
+    }
+
+    /** 🔹 Stock disponible; con compras en curso es una lectura aproximada */
+    public int available() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private synchronized boolean takeSlow(int quantity) {
+        int total = drain();
+        boolean taken = total >= quantity;
+        distribute(taken ? total - quantity : total);
+        return taken;
+    }
+
+    private int drain() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        return total;
+    }
+
+    // Se suma en lugar de fijar: una reposición puede haber llegado mientras tanto
+    private void distribute(int total) {
+        int share = total / stripes;
+        int rest = total % stripes;
+        for (int i = 0; i < stripes; i++) {
+            int amount = share + (i < rest ? 1 : 0);
+            if (amount > 0) cells.addAndGet(i * PADDING, amount);
+        }
+    }
+
+    private int home() {
+        long id = Thread.currentThread().getId();
+        int stripe = (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (stripes - 1);
+        return stripe * PADDING;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.config;
+
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProductClientConfig {
+
+    /**
+     * Pool de conexiones persistentes hacia productos-service. Las conexiones inactivas se
+     * revalidan antes de reutilizarse y caducan antes de que el servidor las cierre
+     * (Tomcat: 20 s por defecto). Sus métricas se publican como
+     * httpcomponents.httpclient.pool.* (conexiones en uso, libres, máximo y peticiones en espera).
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingAsyncClientConnectionManager productConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${product-service.client.max-connections:50}") int maxConnections,
+            @Value("${product-service.client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${product-service.client.timeout:5s}") Duration timeout,
+            @Value("${product-service.client.validate-after-inactivity:2s}") Duration validateAfterInactivity,
+            @Value("${product-service.client.time-to-live:5m}") Duration timeToLive) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(connectTimeout))
+                        .setSocketTimeout(timeout(timeout))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivity.toMillis()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(timeToLive.toMillis()))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "product-service")
+                .bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Cliente HTTP asíncrono hacia productos-service: la E/S la resuelve el reactor de
+     * HttpClient 5 con pocos hilos, así que esperar a varias respuestas a la vez no ocupa
+     * un hilo por llamada.
+     * <p>
+     * http-version: NEGOTIATE usa HTTP/2 cuando el servidor lo ofrece por TLS (ALPN) y
+     * HTTP/1.1 en claro; FORCE_HTTP_2 habla h2c directamente (productos-service lo admite
+     * con server.http2.enabled) y multiplexa todas las llamadas sobre una conexión.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient productHttpClient(
+            PoolingAsyncClientConnectionManager productConnectionManager,
+            @Value("${product-service.client.http-version:NEGOTIATE}") HttpVersionPolicy versionPolicy,
+            @Value("${product-service.client.timeout:5s}") Duration timeout,
+            @Value("${product-service.client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${product-service.client.keep-alive:15s}") Duration keepAlive) {
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(productConnectionManager)
+                .setVersionPolicy(versionPolicy)
+                .setH2Config(H2Config.custom().setPushEnabled(false).build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(connectionRequestTimeout))
+                        .setResponseTimeout(timeout(timeout))
+                        // Sin cabecera Keep-Alive del servidor, tiempo máximo de reutilización
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .build();
+        client.start();
+        return client;
+    }
+
+    /**
+     * Circuit breaker de productos-service: con productos-service degradado (errores,
+     * tiempos agotados o llamadas lentas por encima del umbral) se abre y las llamadas
+     * fallan al instante en lugar de ocupar conexiones y peticiones de inventario.
+     * Un 404 es una respuesta válida y no cuenta como fallo.
+     */
+    @Bean
+    public CircuitBreaker productCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${product-service.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${product-service.circuit-breaker.slow-call-duration-threshold:2s}") Duration slowCallDuration,
+            @Value("${product-service.circuit-breaker.slow-call-rate-threshold:50}") float slowCallRateThreshold,
+            @Value("${product-service.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${product-service.circuit-breaker.minimum-number-of-calls:20}") int minimumNumberOfCalls,
+            @Value("${product-service.circuit-breaker.wait-duration-in-open-state:10s}") Duration waitInOpenState,
+            @Value("${product-service.circuit-breaker.permitted-calls-in-half-open-state:5}") int halfOpenCalls) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .ignoreExceptions(ProductNotFoundException.class, BulkheadFullException.class)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker("product-service");
+    }
+
+    /**
+     * Bulkhead de productos-service: limita las llamadas en curso para que una dependencia
+     * lenta no acapare todas las peticiones de inventario. Sin espera: si está lleno, falla.
+     */
+    @Bean
+    public Bulkhead productBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${product-service.bulkhead.max-concurrent-calls:100}") int maxConcurrentCalls) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead("product-service");
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+}
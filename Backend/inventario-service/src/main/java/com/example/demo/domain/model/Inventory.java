@@ -16,7 +16,8 @@ public class Inventory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
+    // Una fila por producto: las actualizaciones de stock se hacen por productId
+    @Column(nullable = false, unique = true)
     private Long productId;
 
     @Column(nullable = false)
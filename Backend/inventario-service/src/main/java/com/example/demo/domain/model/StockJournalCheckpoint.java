@@ -0,0 +1,28 @@
+package com.example.demo.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Hasta dónde del diario de stock está aplicado en la tabla de inventarios. Se guarda en
+ * la misma transacción que los movimientos, así que al arrancar se sabe qué falta aplicar.
+ */
+@Entity
+@Table(name = "stock_journal_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockJournalCheckpoint {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long epoch;
+
+    @Column(nullable = false)
+    private Integer position;
+}
@@ -0,0 +1,31 @@
+package com.example.demo.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Stock apartado para una compra que aún no se ha confirmado. La cantidad ya se restó del
+ * inventario; al liberarse o caducar se devuelve, al confirmarse solo se borra la fila.
+ */
+@Entity
+@Table(name = "stock_reservations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -1,9 +1,41 @@
 package com.example.demo.domain.repository;
 
 import com.example.demo.domain.model.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductId(Long productId);
+
+    List<Inventory> findByProductIdIn(Collection<Long> productIds);
+
+    @Query("select i.quantity from Inventory i where i.productId = :productId")
+    Optional<Integer> findQuantityByProductId(@Param("productId") Long productId);
+
+    // 🔹 Lee la fila bloqueándola (SELECT ... FOR UPDATE) hasta el final de la transacción
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventory i where i.productId = :productId")
+    Optional<Inventory> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    // 🔹 Resta solo si hay stock suficiente: 0 filas = sin inventario o agotado
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Inventory i set i.quantity = i.quantity - :quantity
+            where i.productId = :productId and i.quantity >= :quantity""")
+    int decrementIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    // 🔹 Suma o resta sin bajar de 0: 0 filas = sin inventario
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Inventory i set i.quantity = case when i.quantity + :change < 0 then 0 else i.quantity + :change end
+            where i.productId = :productId""")
+    int adjustQuantity(@Param("productId") Long productId, @Param("change") int change);
 }
@@ -0,0 +1,7 @@
+package com.example.demo.domain.repository;
+
+import com.example.demo.domain.model.StockJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockJournalCheckpointRepository extends JpaRepository<StockJournalCheckpoint, Long> {
+}
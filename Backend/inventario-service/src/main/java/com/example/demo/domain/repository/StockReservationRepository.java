@@ -0,0 +1,17 @@
+package com.example.demo.domain.repository;
+
+import com.example.demo.domain.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    // 🔹 Borrar sin cargar antes las entidades; devuelve cuántas filas se borraron
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from StockReservation r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,325 @@
+package com.example.demo.infrastructure.client;
+
+import com.example.demo.application.dto.ProductResponse;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.exception.ProductServiceException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.RequestNotExecutedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cliente asíncrono de productos-service.
+ * <p>
+ * Cada llamada devuelve un CompletableFuture que se completa en el reactor de E/S de
+ * HttpClient 5, con un tiempo máximo por llamada. Las lecturas de varios productos se
+ * reparten en lotes de {@code GET /products?ids=} que viajan en paralelo (como mucho
+ * {@code max-concurrency} a la vez), y un lote que falla no invalida los demás.
+ * Todas las llamadas pasan por el bulkhead y el circuit breaker de productos-service.
+ */
+@Component
+public class ProductClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductClient.class);
+
+    private static final String ACCEPT = "application/cbor, application/json";
+
+    /** Resultado parcial de una lectura por lotes: encontrados, inexistentes y no disponibles */
+    public record ProductBatch(Map<Long, ProductResponse> products, Set<Long> missing, Set<Long> failed) {
+    }
+
+    /** Página de {@code GET /products?limit=}: productos y cursor de la siguiente */
+    public record ProductPage(List<ProductResponse> items, String nextCursor) {
+    }
+
+    /** Cuerpo de {@code GET /products?ids=} */
+    private record BatchResponse(List<ProductResponse> products, List<Long> missing) {
+    }
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final ObjectMapper json;
+    private final ObjectMapper cbor;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final String productServiceUrl;
+    private final Duration timeout;
+    private final int batchSize;
+    private final int maxConcurrency;
+
+    public ProductClient(
+            CloseableHttpAsyncClient productHttpClient,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            CircuitBreaker productCircuitBreaker,
+            Bulkhead productBulkhead,
+            @Value("${PRODUCT_SERVICE_URL:http://localhost:8081/products}") String productServiceUrl,
+            @Value("${product-service.client.timeout:5s}") Duration timeout,
+            @Value("${product-service.client.batch-size:100}") int batchSize,
+            @Value("${product-service.client.max-concurrency:8}") int maxConcurrency) {
+        this.httpClient = productHttpClient;
+        this.json = objectMapper;
+        this.cbor = objectMapper.copyWith(new CBORFactory());
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = productCircuitBreaker;
+        this.bulkhead = productBulkhead;
+        this.productServiceUrl = productServiceUrl.endsWith("/")
+                ? productServiceUrl.substring(0, productServiceUrl.length() - 1)
+                : productServiceUrl;
+        this.timeout = timeout;
+        this.batchSize = batchSize;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /** 🔹 Un producto; falla con ProductNotFoundException si no existe */
+    public CompletableFuture<ProductResponse> getProduct(Long id) {
+        return call("get", SimpleRequestBuilder.get(productServiceUrl + "/" + id), id)
+                .thenApply(response -> read(response, json.constructType(ProductResponse.class)));
+    }
+
+    /**
+     * 🔹 Una página del catálogo por cursor ({@code GET /products?limit=&after=}), ordenada
+     * por ID. nextCursor es null en la última página.
+     */
+    public CompletableFuture<ProductPage> listProducts(String after, int limit) {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.get(productServiceUrl)
+                .addParameter("limit", String.valueOf(limit));
+        if (after != null) builder.addParameter("after", after);
+        return call("list", builder, null)
+                .thenApply(response -> read(response, json.constructType(ProductPage.class)));
+    }
+
+    /**
+     * 🔹 Varios productos en lotes paralelos. Nunca falla: los IDs de un lote que no
+     * responde (error o tiempo agotado) se devuelven en "failed".
+     */
+    public CompletableFuture<ProductBatch> getProducts(Collection<Long> ids) {
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            chunks.add(distinct.subList(from, Math.min(from + batchSize, distinct.size())));
+        }
+
+        List<Supplier<CompletableFuture<ProductBatch>>> calls = chunks.stream()
+                .<Supplier<CompletableFuture<ProductBatch>>>map(chunk -> () -> getChunk(chunk))
+                .toList();
+
+        return fanOut(calls).thenApply(batches -> {
+            Map<Long, ProductResponse> products = new LinkedHashMap<>();
+            Set<Long> missing = new LinkedHashSet<>();
+            Set<Long> failed = new LinkedHashSet<>();
+            for (ProductBatch batch : batches) {
+                products.putAll(batch.products());
+                missing.addAll(batch.missing());
+                failed.addAll(batch.failed());
+            }
+            return new ProductBatch(products, missing, failed);
+        });
+    }
+
+    /** 🔹 Borrar un producto; falla con ProductNotFoundException si no existe */
+    public CompletableFuture<Void> deleteProduct(Long id) {
+        return call("delete", SimpleRequestBuilder.delete(productServiceUrl + "/" + id), id)
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<ProductBatch> getChunk(List<Long> ids) {
+        String query = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return call("batch", SimpleRequestBuilder.get(productServiceUrl).addParameter("ids", query), null)
+                .thenApply(response -> {
+                    BatchResponse body = read(response, json.constructType(BatchResponse.class));
+                    Map<Long, ProductResponse> products = body.products() == null ? Map.of()
+                            : body.products().stream().collect(Collectors.toMap(ProductResponse::getId,
+                                    Function.identity(), (a, b) -> a, LinkedHashMap::new));
+                    Set<Long> missing = body.missing() == null ? Set.of() : new LinkedHashSet<>(body.missing());
+                    return new ProductBatch(products, missing, Set.of());
+                })
+                .exceptionally(error -> {
+                    log.warn("Product batch of {} ids failed: {}", ids.size(), unwrap(error).getMessage());
+                    return new ProductBatch(Map.of(), Set.of(), new LinkedHashSet<>(ids));
+                });
+    }
+
+    /**
+     * 🔹 Ejecutar las llamadas con como mucho maxConcurrency en vuelo, sin bloquear hilos:
+     * cada "carril" lanza la siguiente llamada pendiente cuando termina la anterior.
+     */
+    private <T> CompletableFuture<List<T>> fanOut(List<Supplier<CompletableFuture<T>>> calls) {
+        List<T> results = Collections.synchronizedList(new ArrayList<>(Collections.nCopies(calls.size(), null)));
+        AtomicInteger next = new AtomicInteger();
+
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(maxConcurrency, calls.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = lane(calls, next, results);
+        }
+        return CompletableFuture.allOf(lanes).thenApply(done -> List.copyOf(results));
+    }
+
+    private <T> CompletableFuture<Void> lane(List<Supplier<CompletableFuture<T>>> calls,
+                                             AtomicInteger next, List<T> results) {
+        int index = next.getAndIncrement();
+        if (index >= calls.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return calls.get(index).get()
+                .thenCompose(result -> {
+                    results.set(index, result);
+                    return lane(calls, next, results);
+                });
+    }
+
+    /**
+     * 🔹 Enviar una petición con tiempo máximo y medirla (inventory.product.client por
+     * operación y resultado; inventory.product.client.errors por tipo de error).
+     * Un 404 se traduce en ProductNotFoundException cuando se conoce el ID.
+     */
+    private CompletableFuture<SimpleHttpResponse> call(String operation, SimpleRequestBuilder builder, Long id) {
+        SimpleHttpRequest request = builder
+                .setHeader(HttpHeaders.ACCEPT, ACCEPT)
+                .setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AtomicReference<Future<SimpleHttpResponse>> exchange = new AtomicReference<>();
+        Supplier<CompletionStage<SimpleHttpResponse>> attempt = () -> send(request, exchange)
+                // Una conexión del pool que el servidor acaba de cerrar falla antes de enviar
+                // nada: ese caso se reintenta una vez en otra conexión
+                .exceptionallyCompose(error -> cause(error) instanceof RequestNotExecutedException
+                        ? send(request, exchange)
+                        : CompletableFuture.failedFuture(error))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(response -> {
+                    int status = response.getCode();
+                    if (status == 404 && id != null) throw new ProductNotFoundException(id);
+                    if (status < 200 || status >= 300) {
+                        throw new ProductServiceException("productos-service respondió " + status
+                                + " a " + request.getMethod() + " " + request.getRequestUri());
+                    }
+                    return response;
+                });
+
+        return CircuitBreaker.decorateCompletionStage(circuitBreaker,
+                        Bulkhead.decorateCompletionStage(bulkhead, attempt))
+                .get()
+                .toCompletableFuture()
+                .whenComplete((response, error) -> {
+                    Throwable cause = error == null ? null : cause(error);
+                    if (cause != null && exchange.get() != null) exchange.get().cancel(true);
+
+                    String outcome = cause == null ? "SUCCESS"
+                            : cause instanceof ProductNotFoundException ? "NOT_FOUND" : "ERROR";
+                    if ("ERROR".equals(outcome)) {
+                        meterRegistry.counter("inventory.product.client.errors",
+                                "operation", operation, "exception", cause.getClass().getSimpleName()).increment();
+                    }
+                    sample.stop(meterRegistry.timer("inventory.product.client",
+                            "operation", operation, "outcome", outcome));
+                });
+    }
+
+    private CompletableFuture<SimpleHttpResponse> send(SimpleHttpRequest request,
+                                                       AtomicReference<Future<SimpleHttpResponse>> exchange) {
+        CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+        exchange.set(httpClient.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        }));
+        return result;
+    }
+
+    private <T> T read(SimpleHttpResponse response, JavaType type) {
+        byte[] body = response.getBodyBytes();
+        if (body == null) {
+            throw new ProductServiceException("productos-service devolvió una respuesta vacía");
+        }
+        ContentType contentType = response.getContentType();
+        ObjectMapper mapper = contentType != null && "application/cbor".equalsIgnoreCase(contentType.getMimeType())
+                ? cbor : json;
+
+        try (InputStream in = decode(response, body)) {
+            return mapper.readValue(in, type);
+        } catch (IOException e) {
+            throw new ProductServiceException("Respuesta no válida de productos-service", e);
+        }
+    }
+
+    private static InputStream decode(SimpleHttpResponse response, byte[] body) throws IOException {
+        Header encoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+        InputStream in = new ByteArrayInputStream(body);
+        return encoding != null && "gzip".equalsIgnoreCase(encoding.getValue()) ? new GZIPInputStream(in) : in;
+    }
+
+    /**
+     * Causa de un fallo asíncrono; el tiempo agotado y los rechazos del circuit breaker o
+     * del bulkhead se traducen a ProductServiceException
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = cause(error);
+        if (cause instanceof TimeoutException) {
+            return new ProductServiceException("productos-service no respondió a tiempo", cause);
+        }
+        if (cause instanceof CallNotPermittedException) {
+            return new ProductServiceException("productos-service no disponible (circuito abierto)", cause);
+        }
+        if (cause instanceof BulkheadFullException) {
+            return new ProductServiceException("Demasiadas llamadas en curso a productos-service", cause);
+        }
+        return cause;
+    }
+
+    private static Throwable cause(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -1,13 +1,29 @@
 package com.example.demo.infrastructure.controller;
 
+import com.example.demo.application.dto.CartPurchaseRequestDTO;
+import com.example.demo.application.dto.ProductInventoryBatchDTO;
 import com.example.demo.application.dto.ProductInventoryDTO;
+import com.example.demo.application.dto.ProductInventoryPageDTO;
 import com.example.demo.application.dto.ProductInventoryResponseDTO;
+import com.example.demo.application.dto.ReservationDTO;
 import com.example.demo.application.service.InventoryService;
+import com.example.demo.application.service.ProductCacheService;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
 import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.exception.ProductServiceException;
+import com.example.demo.infrastructure.exception.ReservationNotFoundException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Slf4j
@@ -16,19 +32,102 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService service;
+    private final ProductCacheService productCache;
+    private final ObjectMapper objectMapper;
 
-    public InventoryController(InventoryService service) {
+    public InventoryController(InventoryService service, ProductCacheService productCache,
+                               ObjectMapper objectMapper) {
         this.service = service;
+        this.productCache = productCache;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * 🔹 Obtener todos los inventarios (datos combinados del servicio de productos)
+     * 🔹 Obtener todos los inventarios (datos combinados del servicio de productos). El
+     * catálogo se recorre por páginas y se escribe como array JSON a medida que llega.
      */
     @GetMapping
-    public ResponseEntity<List<ProductInventoryResponseDTO>> getAllInventories() {
-        log.info("GET /inventories - fetching all inventories");
-        List<ProductInventoryResponseDTO> inventories = service.getAllProductsWithQuantities();
-        return ResponseEntity.ok(inventories);
+    public ResponseEntity<StreamingResponseBody> getAllInventories() {
+        log.info("GET /inventories - streaming all inventories");
+        try {
+            // La primera página se pide antes de responder: si falla, el cliente recibe el estado
+            ProductInventoryPageDTO firstPage = service.getInventoryPage(null, service.getCatalogPageSize());
+            ObjectWriter writer = objectMapper.writerFor(ProductInventoryResponseDTO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            StreamingResponseBody body = out -> {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                    generator.writeStartArray();
+                    service.forEachInventory(firstPage, item -> {
+                        try {
+                            writer.writeValue(generator, item);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    generator.writeEndArray();
+                } catch (RuntimeException e) {
+                    // La respuesta ya empezó: el array queda sin cerrar
+                    log.error("Inventory stream interrupted: {}", e.getMessage());
+                    throw e;
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable: {}", e.getMessage());
+            return streamError(HttpStatus.SERVICE_UNAVAILABLE, "Servicio de productos no disponible");
+        } catch (Exception e) {
+            log.error("Error fetching inventories: {}", e.getMessage());
+            return streamError(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno al consultar inventarios");
+        }
+    }
+
+    /**
+     * 🔹 Obtener una página de inventarios (GET /inventories?limit=100&after=cursor)
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getInventoryPage(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        log.info("GET /inventories?limit - after={} limit={}", after, limit);
+        try {
+            ProductInventoryPageDTO page = service.getInventoryPage(after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid inventory page request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
+        } catch (Exception e) {
+            log.error("Error fetching inventory page: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno al consultar inventarios");
+        }
+    }
+
+    /**
+     * 🔹 Obtener el inventario de varios productos (GET /inventories?ids=1,2,3)
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getInventoriesByIds(@RequestParam List<Long> ids) {
+        log.info("GET /inventories?ids - fetching {} inventories", ids.size());
+        try {
+            ProductInventoryBatchDTO inventories = service.getInventoriesByProductIds(ids);
+            return ResponseEntity.ok(inventories);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid inventory batch request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
+        } catch (Exception e) {
+            log.error("Error fetching inventories in batch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno al consultar inventarios");
+        }
     }
 
     /**
@@ -44,6 +143,10 @@ public class InventoryController {
             log.warn("Inventory not found: {}", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Inventario no encontrado con ID: " + id);
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
         } catch (Exception e) {
             log.error("Error fetching inventory {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -66,6 +169,10 @@ public class InventoryController {
             log.warn("Inventory not found: {}", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Inventario no encontrado con ID: " + id);
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
         } catch (Exception e) {
             log.error("Error updating inventory quantity: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -108,6 +215,15 @@ public class InventoryController {
             log.warn("Inventory not found: {}", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Inventario no encontrado con ID: " + id);
+        } catch (InsufficientStockException e) {
+            log.info("Purchase rejected for productId={}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("No hay suficiente inventario disponible para realizar la compra. Disponible: "
+                            + e.getAvailable());
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable during purchase: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
         } catch (RuntimeException e) {
             log.warn("Error during purchase: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -118,4 +234,142 @@ public class InventoryController {
                     .body("Error al procesar la compra");
         }
     }
+
+    /**
+     * 🔹 Comprar varios productos en una sola operación (todo o nada)
+     */
+    @PostMapping("/purchases")
+    public ResponseEntity<?> purchaseCart(@RequestBody CartPurchaseRequestDTO request) {
+        int size = request.getItems() == null ? 0 : request.getItems().size();
+        log.info("POST /inventories/purchases - {} items", size);
+        try {
+            List<ProductInventoryDTO> purchased = service.purchaseCart(request.getItems());
+            return ResponseEntity.ok(purchased);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cart purchase request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (ProductNotFoundException e) {
+            log.warn("Inventory not found: {}", e.getProductId());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Inventario no encontrado con ID: " + e.getProductId());
+        } catch (InsufficientStockException e) {
+            log.info("Cart purchase rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("No hay suficiente inventario del producto " + e.getProductId()
+                            + " para realizar la compra. Disponible: " + e.getAvailable());
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable during cart purchase: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
+        } catch (Exception e) {
+            log.error("Error purchasing cart: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al procesar la compra");
+        }
+    }
+
+    /**
+     * 🔹 Reservar stock durante un tiempo (POST /inventories/{id}/reservations?quantity=2&ttlSeconds=600)
+     */
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<?> reserveStock(
+            @PathVariable Long id,
+            @RequestParam Integer quantity,
+            @RequestParam(required = false) Integer ttlSeconds) {
+        log.info("POST /inventories/{}/reservations - quantity={} ttlSeconds={}", id, quantity, ttlSeconds);
+        try {
+            ReservationDTO reservation = service.reserveStock(id, quantity, ttlSeconds);
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid reservation request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (ProductNotFoundException e) {
+            log.warn("Inventory not found: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Inventario no encontrado con ID: " + id);
+        } catch (InsufficientStockException e) {
+            log.info("Reservation rejected for productId={}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("No hay suficiente inventario disponible para reservar. Disponible: "
+                            + e.getAvailable());
+        } catch (ProductServiceException e) {
+            log.error("Product service unavailable during reservation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Servicio de productos no disponible");
+        } catch (Exception e) {
+            log.error("Error reserving stock: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al reservar inventario");
+        }
+    }
+
+    /**
+     * 🔹 Confirmar una reserva (el stock apartado queda vendido)
+     */
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<?> confirmReservation(@PathVariable String reservationId) {
+        log.info("POST /inventories/reservations/{}/confirm", reservationId);
+        try {
+            return ResponseEntity.ok(service.confirmReservation(reservationId));
+        } catch (ReservationNotFoundException e) {
+            log.warn("Reservation not found: {}", reservationId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Reserva no encontrada o caducada: " + reservationId);
+        } catch (Exception e) {
+            log.error("Error confirming reservation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al confirmar la reserva");
+        }
+    }
+
+    /**
+     * 🔹 Liberar una reserva (el stock apartado vuelve a estar disponible)
+     */
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<?> releaseReservation(@PathVariable String reservationId) {
+        log.info("DELETE /inventories/reservations/{}", reservationId);
+        try {
+            return ResponseEntity.ok(service.releaseReservation(reservationId));
+        } catch (ReservationNotFoundException e) {
+            log.warn("Reservation not found: {}", reservationId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Reserva no encontrada o caducada: " + reservationId);
+        } catch (Exception e) {
+            log.error("Error releasing reservation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al liberar la reserva");
+        }
+    }
+
+    /**
+     * 🔹 Existencias, reservado y disponible para la venta de un producto
+     */
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getAvailability(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(service.getAvailability(id));
+        } catch (ProductNotFoundException e) {
+            log.warn("Inventory not found: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Inventario no encontrado con ID: " + id);
+        } catch (Exception e) {
+            log.error("Error fetching availability {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno al consultar inventario");
+        }
+    }
+
+    /**
+     * 🔹 Estadísticas de la caché local de productos remotos
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> productCacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> streamError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
 }
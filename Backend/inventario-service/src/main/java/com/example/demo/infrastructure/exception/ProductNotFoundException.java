@@ -1,7 +1,15 @@
 package com.example.demo.infrastructure.exception;
 
 public class ProductNotFoundException extends RuntimeException {
+
+    private final Long productId;
+
     public ProductNotFoundException(Long productId) {
         super("Product not found with id: " + productId);
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.example.demo.infrastructure.exception;
+
+public class ProductServiceException extends RuntimeException {
+    public ProductServiceException(String message) {
+        super(message);
+    }
+
+    public ProductServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
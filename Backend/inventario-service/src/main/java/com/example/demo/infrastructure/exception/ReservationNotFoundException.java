@@ -0,0 +1,7 @@
+package com.example.demo.infrastructure.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String reservationId) {
+        super("Reservation not found or expired: " + reservationId);
+    }
+}
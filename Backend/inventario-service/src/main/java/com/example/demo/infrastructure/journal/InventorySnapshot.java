@@ -0,0 +1,99 @@
+package com.example.demo.infrastructure.journal;
+
+import com.example.demo.infrastructure.journal.Movement.Adjusted;
+import com.example.demo.infrastructure.journal.Movement.Checkpoint;
+import com.example.demo.infrastructure.journal.Movement.Deleted;
+import com.example.demo.infrastructure.journal.Movement.Reserved;
+import com.example.demo.infrastructure.journal.Movement.Unreserved;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estado del inventario al que se llega aplicando movimientos: cantidad por producto,
+ * reservas activas y punto del diario del motor de stock. Es lo que guarda un snapshot y
+ * lo que se vuelca en la base de datos al arrancar.
+ */
+public class InventorySnapshot {
+
+    private final Map<Long, Integer> quantities = new HashMap<>();
+    private final Map<String, Reserved> reservations = new LinkedHashMap<>();
+    private Checkpoint checkpoint;
+
+    public static InventorySnapshot of(Map<Long, Integer> quantities, Collection<Reserved> reservations,
+                                       Checkpoint checkpoint) {
+        InventorySnapshot snapshot = new InventorySnapshot();
+        snapshot.quantities.putAll(quantities);
+        reservations.forEach(reservation -> snapshot.reservations.put(reservation.reservationId(), reservation));
+        snapshot.checkpoint = checkpoint;
+        return snapshot;
+    }
+
+    /** 🔹 Aplicar un movimiento */
+    public void apply(Movement movement) {
+        if (movement instanceof Adjusted adjusted) {
+            quantities.merge(adjusted.productId(), adjusted.delta(), Integer::sum);
+        } else if (movement instanceof Deleted deleted) {
+            quantities.remove(deleted.productId());
+        } else if (movement instanceof Reserved reserved) {
+            reservations.put(reserved.reservationId(), reserved);
+        } else if (movement instanceof Unreserved unreserved) {
+            reservations.remove(unreserved.reservationId());
+        } else if (movement instanceof Checkpoint newCheckpoint) {
+            checkpoint = newCheckpoint;
+        }
+    }
+
+    public Map<Long, Integer> quantities() {
+        return Collections.unmodifiableMap(quantities);
+    }
+
+    public Collection<Reserved> reservations() {
+        return Collections.unmodifiableCollection(reservations.values());
+    }
+
+    public Checkpoint checkpoint() {
+        return checkpoint;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(quantities.size());
+        for (Map.Entry<Long, Integer> quantity : quantities.entrySet()) {
+            out.writeLong(quantity.getKey());
+            out.writeInt(quantity.getValue());
+        }
+        out.writeInt(reservations.size());
+        for (Reserved reservation : reservations.values()) {
+            out.writeUTF(reservation.reservationId());
+            out.writeLong(reservation.productId());
+            out.writeInt(reservation.quantity());
+            out.writeLong(reservation.expiresAtMillis());
+        }
+        out.writeBoolean(checkpoint != null);
+        if (checkpoint != null) {
+            out.writeLong(checkpoint.epoch());
+            out.writeInt(checkpoint.position());
+        }
+    }
+
+    static InventorySnapshot readFrom(DataInputStream in) throws IOException {
+        InventorySnapshot snapshot = new InventorySnapshot();
+        for (int i = in.readInt(); i > 0; i--) {
+            snapshot.quantities.put(in.readLong(), in.readInt());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            Reserved reservation = new Reserved(in.readUTF(), in.readLong(), in.readInt(), in.readLong());
+            snapshot.reservations.put(reservation.reservationId(), reservation);
+        }
+        if (in.readBoolean()) {
+            snapshot.checkpoint = new Checkpoint(in.readLong(), in.readInt());
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.infrastructure.journal;
+
+/**
+ * Un cambio confirmado en el inventario, tal como queda en el diario de movimientos.
+ * {@link Adjusted} lleva el delta realmente aplicado (p. ej. un ajuste que tocó 0 solo
+ * resta lo que había), así que sumar los deltas reconstruye la cantidad.
+ */
+public sealed interface Movement {
+
+    /** Por qué cambió la cantidad */
+    enum Reason { PURCHASE, ADJUSTMENT, RELEASE, ENGINE }
+
+    record Adjusted(long productId, int delta, Reason reason) implements Movement {
+    }
+
+    record Deleted(long productId) implements Movement {
+    }
+
+    record Reserved(String reservationId, long productId, int quantity, long expiresAtMillis) implements Movement {
+    }
+
+    record Unreserved(String reservationId) implements Movement {
+    }
+
+    /** Punto del diario del motor de stock ya aplicado en la base de datos */
+    record Checkpoint(long epoch, int position) implements Movement {
+    }
+}
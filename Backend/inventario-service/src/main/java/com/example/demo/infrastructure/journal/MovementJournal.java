@@ -0,0 +1,422 @@
+package com.example.demo.infrastructure.journal;
+
+import com.example.demo.infrastructure.journal.Movement.Adjusted;
+import com.example.demo.infrastructure.journal.Movement.Checkpoint;
+import com.example.demo.infrastructure.journal.Movement.Deleted;
+import com.example.demo.infrastructure.journal.Movement.Reserved;
+import com.example.demo.infrastructure.journal.Movement.Unreserved;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Diario de movimientos de inventario, de solo anexado, en segmentos mapeados en memoria
+ * ({@code movements-<n>.log}). Cada transacción es una entrada: longitud, CRC32C y los
+ * movimientos con su hora. Anexar es una escritura secuencial en memoria: sobrevive a la
+ * caída del proceso en cuanto se escribe y a la del sistema tras {@link #force()}.
+ * <p>
+ * Un segmento lleno se cierra y se abre el siguiente. {@link #compact()} pliega los
+ * segmentos cerrados sobre el último snapshot ({@code snapshot-<n>.bin}, estado hasta el
+ * segmento n sin incluir); al arrancar basta con leer el snapshot y los segmentos
+ * posteriores. Los segmentos ya plegados se conservan (retained-segments) como historial.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.journal.enabled", havingValue = "true")
+public class MovementJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MovementJournal.class);
+
+    public static final int SEGMENT_HEADER_SIZE = 16;
+    private static final int ENTRY_HEADER_SIZE = 8;
+
+    private static final int SEGMENT_MAGIC = 0x4D4F564A; // "MOVJ"
+    private static final int SNAPSHOT_MAGIC = 0x4D4F5653; // "MOVS"
+    private static final int VERSION = 1;
+    private static final Pattern SEGMENT_FILE = Pattern.compile("movements-(\\d{16})\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d{16})\\.bin");
+
+    private static final byte ADJUSTED = 1;
+    private static final byte DELETED = 2;
+    private static final byte RESERVED = 3;
+    private static final byte UNRESERVED = 4;
+    private static final byte CHECKPOINT = 5;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int retainedSegments;
+    private final CRC32C checksum = new CRC32C();
+    private final Object compaction = new Object();
+    // Se toma antes del commit y se suelta al terminar: las entradas quedan en orden de commit
+    private final ReentrantLock commitOrder = new ReentrantLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex = -1;
+    private int position;
+
+    public MovementJournal(
+            @Value("${inventory.journal.path:data/inventory-journal}") Path directory,
+            @Value("${inventory.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${inventory.journal.retained-segments:16}") int retainedSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.retainedSegments = retainedSegments;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * 🔹 Estado al que llevan el último snapshot y los segmentos posteriores; null si el
+     * diario está vacío (primer arranque)
+     */
+    public synchronized InventorySnapshot replay() throws IOException {
+        Optional<Long> snapshotIndex = latestSnapshot();
+        if (snapshotIndex.isEmpty() && indexes(SEGMENT_FILE).isEmpty()) return null;
+
+        InventorySnapshot state = snapshotIndex.isPresent() ? readSnapshot(snapshotIndex.get()) : new InventorySnapshot();
+        read(snapshotIndex.orElse(0L), Long.MAX_VALUE, (movement, timestamp) -> state.apply(movement));
+        return state;
+    }
+
+    /**
+     * 🔹 Empezar a anexar detrás de todo lo que haya. El último segmento de un arranque
+     * anterior se reutiliza si aún no está en un snapshot: se sigue tras su última entrada
+     * válida y se borra lo que quede de una a medias.
+     */
+    public synchronized void open() throws IOException {
+        long first = latestSnapshot().orElse(0L);
+        List<Long> segments = indexes(SEGMENT_FILE);
+        long last = segments.isEmpty() ? -1 : segments.get(segments.size() - 1);
+        if (last >= first && reopenSegment(last)) return;
+        openSegment(Math.max(first, last + 1));
+    }
+
+    /** 🔹 Anexar los movimientos de una transacción como una sola entrada */
+    public synchronized void append(List<Movement> movements) {
+        byte[] payload = encode(movements);
+        int size = ENTRY_HEADER_SIZE + payload.length;
+        if (size > segmentSize - SEGMENT_HEADER_SIZE) {
+            throw new IllegalArgumentException("Entrada de " + size + " bytes mayor que un segmento del diario");
+        }
+        if (segment == null) throw new IllegalStateException("El diario de movimientos no está abierto");
+
+        try {
+            if (position + size > segment.capacity()) roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir un segmento nuevo del diario", e);
+        }
+        segment.put(position + ENTRY_HEADER_SIZE, payload);
+        checksum.reset();
+        checksum.update(payload);
+        segment.putInt(position + 4, (int) checksum.getValue());
+        // La longitud se escribe la última: una entrada con longitud está completa
+        segment.putInt(position, payload.length);
+        position += size;
+    }
+
+    /**
+     * 🔹 Anotar un movimiento de la transacción en curso. Los de una misma transacción se
+     * anexan juntos cuando se confirma; si se deshace, no se anota nada. Desde antes del
+     * commit hasta después de anexar se retiene {@code commitOrder}, así que el orden del
+     * diario es el de commit: dos transacciones sobre el mismo producto nunca se invierten.
+     * Quien llama debe haber volcado ya sus escrituras (con sus bloqueos de fila), para no
+     * esperar una fila mientras retiene el orden.
+     */
+    public void appendOnCommit(Movement movement) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(movement));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Movement> pending = (List<Movement>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Movement> movements = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, movements);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean ordered;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitOrder.lock();
+                    ordered = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    append(movements);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(MovementJournal.this);
+                    if (ordered) commitOrder.unlock();
+                }
+            });
+            pending = movements;
+        }
+        pending.add(movement);
+    }
+
+    /**
+     * 🔹 Recorrer los movimientos de los segmentos [from, to), con la hora de su entrada
+     * (milisegundos). Cada segmento se lee hasta su primera entrada incompleta o sin CRC válido.
+     */
+    public void read(long fromSegment, long toSegment, ObjLongConsumer<Movement> consumer) throws IOException {
+        for (long index : indexes(SEGMENT_FILE)) {
+            if (index < fromSegment || index >= toSegment) continue;
+            try (FileChannel file = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                if (buffer.capacity() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != SEGMENT_MAGIC
+                        || buffer.getInt(4) != VERSION || buffer.getLong(8) != index) {
+                    log.warn("Skipping invalid journal segment {}", index);
+                    continue;
+                }
+                readEntries(buffer, index, consumer);
+            }
+        }
+    }
+
+    /**
+     * 🔹 Plegar los segmentos cerrados en un snapshot nuevo. El segmento en curso se cierra
+     * antes, así que el snapshot llega hasta el último movimiento anotado.
+     */
+    public void compact() throws IOException {
+        synchronized (compaction) {
+            long upTo;
+            synchronized (this) {
+                if (segment == null) return;
+                if (position > SEGMENT_HEADER_SIZE) roll();
+                upTo = segmentIndex;
+            }
+            Optional<Long> previous = latestSnapshot();
+            if (previous.isPresent() && previous.get() >= upTo) return;
+
+            InventorySnapshot state = previous.isPresent() ? readSnapshot(previous.get()) : new InventorySnapshot();
+            read(previous.orElse(0L), upTo, (movement, timestamp) -> state.apply(movement));
+            writeSnapshot(state, upTo);
+
+            for (long index : indexes(SNAPSHOT_FILE)) {
+                if (index < upTo) Files.deleteIfExists(snapshotPath(index));
+            }
+            for (long index : indexes(SEGMENT_FILE)) {
+                if (index < upTo - retainedSegments) Files.deleteIfExists(segmentPath(index));
+            }
+            log.info("Inventory journal compacted up to segment {} ({} products)", upTo, state.quantities().size());
+        }
+    }
+
+    /** 🔹 Guardar un snapshot del estado hasta el segmento {@code nextSegment} sin incluir */
+    public void writeSnapshot(InventorySnapshot state, long nextSegment) throws IOException {
+        Path temporary = directory.resolve("snapshot.tmp");
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)), crc))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextSegment);
+            state.writeTo(out);
+            // El CRC va al final y no se incluye a sí mismo
+            out.writeInt((int) crc.getValue());
+        }
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temporary, snapshotPath(nextSegment), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 🔹 Forzar la escritura a disco del segmento en curso */
+    public synchronized void force() {
+        if (segment != null) segment.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) return;
+        segment.force();
+        channel.close();
+        channel = null;
+        segment = null;
+    }
+
+    private void roll() throws IOException {
+        segment.force();
+        channel.close();
+        openSegment(segmentIndex + 1);
+    }
+
+    private boolean reopenSegment(long index) throws IOException {
+        Path path = segmentPath(index);
+        if (Files.size(path) != segmentSize) return false;
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if (buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != index) {
+            file.close();
+            return false;
+        }
+
+        int end = readEntries(buffer, index, (movement, timestamp) -> { });
+        // Una entrada a medias se borra para que nunca se lea detrás de las nuevas
+        if (end + ENTRY_HEADER_SIZE <= buffer.capacity()) {
+            int garbage = Math.min(buffer.capacity(), end + ENTRY_HEADER_SIZE + Math.max(0, buffer.getInt(end)));
+            for (int offset = end; offset < garbage; offset++) {
+                buffer.put(offset, (byte) 0);
+            }
+            buffer.force();
+        }
+        channel = file;
+        segment = buffer;
+        segmentIndex = index;
+        position = end;
+        log.info("Inventory journal reopened at segment {} offset {}", index, end);
+        return true;
+    }
+
+    private void openSegment(long index) throws IOException {
+        channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(0, SEGMENT_MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putLong(8, index);
+        segment.force(0, SEGMENT_HEADER_SIZE);
+        segmentIndex = index;
+        position = SEGMENT_HEADER_SIZE;
+    }
+
+    /** Devuelve dónde acaba la última entrada válida */
+    private static int readEntries(MappedByteBuffer buffer, long index, ObjLongConsumer<Movement> consumer) {
+        CRC32C crc = new CRC32C();
+        int offset = SEGMENT_HEADER_SIZE;
+        while (offset + ENTRY_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + ENTRY_HEADER_SIZE + length > buffer.capacity()) return offset;
+            byte[] payload = new byte[length];
+            buffer.get(offset + ENTRY_HEADER_SIZE, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("Journal segment {} ends at a damaged entry (offset {})", index, offset);
+                return offset;
+            }
+            decode(payload, consumer);
+            offset += ENTRY_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private InventorySnapshot readSnapshot(long index) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath(index))), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION || in.readLong() != index) {
+                throw new IOException("Snapshot " + index + " no válido");
+            }
+            InventorySnapshot state = InventorySnapshot.readFrom(in);
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) throw new IOException("Snapshot " + index + " con CRC incorrecto");
+            return state;
+        }
+    }
+
+    private Optional<Long> latestSnapshot() throws IOException {
+        List<Long> snapshots = indexes(SNAPSHOT_FILE);
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    private List<Long> indexes(Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> pattern.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("movements-%016d.log", index));
+    }
+
+    private Path snapshotPath(long index) {
+        return directory.resolve(String.format("snapshot-%016d.bin", index));
+    }
+
+    private static byte[] encode(List<Movement> movements) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + movements.size() * 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(movements.size());
+            for (Movement movement : movements) {
+                if (movement instanceof Adjusted adjusted) {
+                    out.writeByte(ADJUSTED);
+                    out.writeLong(adjusted.productId());
+                    out.writeInt(adjusted.delta());
+                    out.writeByte(adjusted.reason().ordinal());
+                } else if (movement instanceof Deleted deleted) {
+                    out.writeByte(DELETED);
+                    out.writeLong(deleted.productId());
+                } else if (movement instanceof Reserved reserved) {
+                    out.writeByte(RESERVED);
+                    out.writeUTF(reserved.reservationId());
+                    out.writeLong(reserved.productId());
+                    out.writeInt(reserved.quantity());
+                    out.writeLong(reserved.expiresAtMillis());
+                } else if (movement instanceof Unreserved unreserved) {
+                    out.writeByte(UNRESERVED);
+                    out.writeUTF(unreserved.reservationId());
+                } else if (movement instanceof Checkpoint checkpoint) {
+                    out.writeByte(CHECKPOINT);
+                    out.writeLong(checkpoint.epoch());
+                    out.writeInt(checkpoint.position());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] payload, ObjLongConsumer<Movement> consumer) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long timestamp = in.readLong();
+            for (int i = in.readInt(); i > 0; i--) {
+                byte type = in.readByte();
+                Movement movement = switch (type) {
+                    case ADJUSTED -> new Adjusted(in.readLong(), in.readInt(), Movement.Reason.values()[in.readByte()]);
+                    case DELETED -> new Deleted(in.readLong());
+                    case RESERVED -> new Reserved(in.readUTF(), in.readLong(), in.readInt(), in.readLong());
+                    case UNRESERVED -> new Unreserved(in.readUTF());
+                    case CHECKPOINT -> new Checkpoint(in.readLong(), in.readInt());
+                    default -> throw new IOException("Tipo de movimiento desconocido: " + type);
+                };
+                consumer.accept(movement, timestamp);
+            }
+        } catch (IOException e) {
+            // El CRC cuadra: solo puede ser un formato que esta versión no entiende
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.infrastructure.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de movimientos de stock en un fichero mapeado en memoria, de solo anexado.
+ * <p>
+ * Cabecera: magic (int), versión (int), época (long). Registro: productId (long),
+ * delta (int), CRC32C (int) de época + productId + delta. Un anexado es una escritura en
+ * memoria: sobrevive a la caída del proceso en cuanto se escribe y a la del sistema tras
+ * {@link #force()}. Al reiniciar se vuelve a la cabecera con una época nueva; los registros
+ * antiguos que queden detrás dejan de cuadrar con el CRC.
+ * <p>
+ * Los anexados no se bloquean entre sí: cada uno reserva su hueco con un CAS sobre
+ * {@code tail}, escribe su registro y publica el CRC el último (escritura con release), así
+ * que un registro con CRC válido está completo. {@link #position()} avanza mientras los
+ * registros siguientes sean válidos: un hueco reservado y aún sin escribir la detiene hasta
+ * el siguiente volcado. Al abrir se recorre todo el fichero, porque una caída puede dejar
+ * un hueco (de un anexado sin confirmar) delante de registros ya confirmados.
+ */
+public class StockJournal implements Closeable {
+
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 16;
+
+    private static final int MAGIC = 0x53544B4A; // "STKJ"
+    private static final int VERSION = 1;
+
+    // CRC de cada registro, leído y escrito con acquire/release sobre el fichero mapeado
+    private static final VarHandle CRC_FIELD = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    // CRC y búfer de trabajo por hilo: se calculan sin compartir nada
+    private static final ThreadLocal<Crc> CRC = ThreadLocal.withInitial(Crc::new);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // Siguiente posición libre; la capacidad (o más) mientras se reinicia
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long epoch;
+    // Hasta dónde todos los registros están escritos (protegido por el monitor)
+    private int position;
+
+    public StockJournal(Path path, int capacity) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = HEADER_SIZE + (capacity - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            epoch = buffer.getLong(8);
+            position = HEADER_SIZE;
+            for (int offset = HEADER_SIZE; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+                if (valid(offset)) position = offset + RECORD_SIZE;
+            }
+        } else {
+            // Un fichero nuevo empieza en una época que no coincide con ningún punto guardado antes
+            writeHeader(System.currentTimeMillis());
+            position = HEADER_SIZE;
+        }
+        tail.set(position);
+    }
+
+    /** 🔹 Anexar un movimiento; false si el diario está lleno */
+    public boolean append(long productId, int delta) {
+        int offset = reserve(RECORD_SIZE);
+        if (offset < 0) return false;
+
+        write(offset, productId, delta);
+        return true;
+    }
+
+    /** 🔹 Anexar varios movimientos juntos, sin intercalar otros; false si no caben todos */
+    public boolean appendAll(Map<Long, Integer> deltas) {
+        int offset = reserve(deltas.size() * RECORD_SIZE);
+        if (offset < 0) return false;
+
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            write(offset, entry.getKey(), entry.getValue());
+            offset += RECORD_SIZE;
+        }
+        return true;
+    }
+
+    /** 🔹 Suma de los deltas por producto entre dos posiciones (sin los huecos de una caída) */
+    public Map<Long, Integer> deltas(int from, int to) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (int offset = from; offset < to; offset += RECORD_SIZE) {
+            if (valid(offset)) {
+                deltas.merge(buffer.getLong(offset), buffer.getInt(offset + 8), Integer::sum);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 🔹 Volver a la cabecera con una época nueva, solo si no se ha anexado nada después
+     * de {@code expectedPosition} (todo lo anterior ya está aplicado). Mientras tanto los
+     * anexados ven el diario lleno, así que ninguno escribe con la época nueva antes de
+     * que la cabecera esté en disco.
+     */
+    public synchronized boolean reset(int expectedPosition) {
+        if (position() != expectedPosition || !tail.compareAndSet(expectedPosition, buffer.capacity())) {
+            return false;
+        }
+        writeHeader(epoch + 1);
+        position = HEADER_SIZE;
+        tail.set(HEADER_SIZE);
+        return true;
+    }
+
+    /** 🔹 Forzar la escritura a disco */
+    public void force() {
+        buffer.force();
+    }
+
+    /** 🔹 Fin de los registros escritos sin huecos */
+    public synchronized int position() {
+        long end = Math.min(tail.get(), buffer.capacity());
+        while (position + RECORD_SIZE <= end && valid(position)) {
+            position += RECORD_SIZE;
+        }
+        return position;
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    // Posición reservada o -1 si no cabe
+    private int reserve(int size) {
+        while (true) {
+            long current = tail.get();
+            if (current + size > buffer.capacity()) return -1;
+            if (tail.compareAndSet(current, current + size)) return (int) current;
+        }
+    }
+
+    private void write(int offset, long productId, int delta) {
+        buffer.putLong(offset, productId);
+        buffer.putInt(offset + 8, delta);
+        // El CRC el último y con release: quien lo lea válido ve también el resto
+        CRC_FIELD.setRelease(buffer, offset + 12, CRC.get().of(epoch, productId, delta));
+    }
+
+    private void writeHeader(long newEpoch) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, newEpoch);
+        buffer.force(0, HEADER_SIZE);
+        epoch = newEpoch;
+    }
+
+    private boolean valid(int offset) {
+        int crc = (int) CRC_FIELD.getAcquire(buffer, offset + 12);
+        return crc == CRC.get().of(epoch, buffer.getLong(offset), buffer.getInt(offset + 8));
+    }
+
+    private static final class Crc {
+        private final CRC32C checksum = new CRC32C();
+        private final ByteBuffer scratch = ByteBuffer.allocate(20);
+
+        int of(long epoch, long productId, int delta) {
+            scratch.clear().putLong(epoch).putLong(productId).putInt(delta).flip();
+            checksum.reset();
+            checksum.update(scratch);
+            return (int) checksum.getValue();
+        }
+    }
+}
@@ -1,6 +1,6 @@
-INSERT INTO inventories (id, product_id, quantity) VALUES
-(1, 1, 50),
-(2, 2, 30),
-(3, 3, 20),
-(4, 4, 15),
-(5, 5, 60);
\ No newline at end of file
+INSERT INTO inventories (product_id, quantity) VALUES
+(1, 50),
+(2, 30),
+(3, 20),
+(4, 15),
+(5, 60);
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GET /inventories/{id} con miles de peticiones concurrentes, atendidas con hilos de
+ * plataforma (Tomcat, 200 hilos) y con hilos virtuales (perfil "virtual", JDK 21+).
+ * productos-service se sustituye por un servidor local que responde con una latencia fija,
+ * de modo que el tiempo de cada petición lo domina la espera de red.
+ *
+ * mvn test -Pbenchmark -Dtest=InventoryLoadBenchmark   (con JAVA_HOME apuntando a un JDK 21)
+ */
+@Tag("benchmark")
+class InventoryLoadBenchmark {
+
+    // Ajustables con -Dbenchmark.latency-ms, -Dbenchmark.concurrency y -Dbenchmark.requests
+    private static final Duration PRODUCT_LATENCY = Duration.ofMillis(Long.getLong("benchmark.latency-ms", 200));
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 2_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+    private static final int WARM_UP = REQUESTS / 10;
+    private static final int PRODUCTS = 100;
+    // Igual en los dos modos: solo cambia quién espera a productos-service
+    private static final int CLIENT_CONNECTIONS = 1_000;
+
+    private static HttpServer productStub;
+    private static ExecutorService productStubExecutor;
+
+    private record Result(String mode, double seconds, long errors, long[] latenciesMicros, double pinned) {
+    }
+
+    @BeforeAll
+    static void startProductStub() throws IOException {
+        // Por defecto el servidor del JDK cierra las conexiones inactivas por encima de 200
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CLIENT_CONNECTIONS));
+        productStubExecutor = Executors.newCachedThreadPool();
+        productStub = HttpServer.create(new InetSocketAddress("localhost", 0), 4_096);
+        productStub.setExecutor(productStubExecutor);
+        productStub.createContext("/products/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/products/".length());
+            byte[] body = ("{\"id\":" + id + ",\"name\":\"Producto " + id + "\",\"sku\":\"SKU-" + id
+                    + "\",\"price\":10.5,\"description\":\"Producto de prueba\"}").getBytes(StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(PRODUCT_LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        productStub.start();
+    }
+
+    @AfterAll
+    static void stopProductStub() {
+        productStub.stop(0);
+        productStubExecutor.shutdownNow();
+    }
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform"));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run("virtual"));
+        } else {
+            System.out.println("JDK " + Runtime.version().feature() + ": se omite el modo de hilos virtuales (requiere JDK 21+)");
+        }
+
+        System.out.printf("%-9s %8s %10s %8s %8s %8s %8s %8s%n",
+                "threads", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "pinned");
+        for (Result result : results) {
+            System.out.printf("%-9s %8d %10.0f %8.1f %8.1f %8.1f %8.1f %8.0f%n",
+                    result.mode(), result.errors(), REQUESTS / result.seconds(),
+                    percentile(result.latenciesMicros(), 0.50), percentile(result.latenciesMicros(), 0.90),
+                    percentile(result.latenciesMicros(), 0.99), percentile(result.latenciesMicros(), 1.0),
+                    result.pinned());
+        }
+
+        results.forEach(result -> assertEquals(0, result.errors(), result.mode()));
+    }
+
+    private Result run(String mode) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--PRODUCT_SERVICE_URL=http://localhost:" + productStub.getAddress().getPort() + "/products",
+                "--product-service.client.max-connections=" + CLIENT_CONNECTIONS,
+                "--product-service.bulkhead.max-concurrent-calls=" + CLIENT_CONNECTIONS,
+                // La latencia del servidor simulado es fija: no es una degradación
+                "--product-service.circuit-breaker.slow-call-duration-threshold=60s",
+                "--product-service.client.timeout=60s",
+                "--product-service.client.connection-request-timeout=60s",
+                // Sin caché local: cada petición espera a productos-service
+                "--inventory.product-cache.maximum-size=0",
+                "--spring.datasource.url=jdbc:h2:mem:inventory-load-" + mode + ";DB_CLOSE_DELAY=-1",
+                // Cada ejecución parte de data.sql, no de lo que dejó la anterior
+                "--inventory.journal.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        if (mode.equals("virtual")) {
+            args.add("--spring.profiles.active=virtual");
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .run(args.toArray(String[]::new))) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            load(client, port, WARM_UP);
+            long start = System.nanoTime();
+            long[] latencies = new long[REQUESTS];
+            long errors = load(client, port, REQUESTS, latencies);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Timer pinned = context.getBean(MeterRegistry.class).find("inventory.virtual.pinned").timer();
+            return new Result(mode, seconds, errors, latencies, pinned == null ? 0 : pinned.count());
+        }
+    }
+
+    private long load(HttpClient client, int port, int requests) throws InterruptedException {
+        return load(client, port, requests, new long[requests]);
+    }
+
+    /** Lanza "requests" peticiones con como mucho CONCURRENCY en vuelo; devuelve las fallidas */
+    private long load(HttpClient client, int port, int requests, long[] latenciesMicros) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicInteger errors = new AtomicInteger();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[requests];
+
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/inventories/" + (1 + i % PRODUCTS)))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            calls[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latenciesMicros[index] = (System.nanoTime() - sent) / 1_000;
+                        if (error != null || response.statusCode() != 200) errors.incrementAndGet();
+                        inFlight.release();
+                    });
+        }
+
+        CompletableFuture.allOf(calls).exceptionally(error -> null).join();
+        return errors.get();
+    }
+
+    private static double percentile(long[] latenciesMicros, double percentile) {
+        long[] sorted = latenciesMicros.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+}
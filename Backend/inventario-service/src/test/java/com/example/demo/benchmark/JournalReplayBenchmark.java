@@ -0,0 +1,79 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.infrastructure.journal.InventorySnapshot;
+import com.example.demo.infrastructure.journal.Movement;
+import com.example.demo.infrastructure.journal.Movement.Adjusted;
+import com.example.demo.infrastructure.journal.Movement.Reason;
+import com.example.demo.infrastructure.journal.Movement.Reserved;
+import com.example.demo.infrastructure.journal.Movement.Unreserved;
+import com.example.demo.infrastructure.journal.MovementJournal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recuperación desde el diario de movimientos: se anotan PRODUCTS productos y MOVEMENTS
+ * transacciones (compras, reservas y liberaciones) y se mide cuánto tarda en reconstruirse
+ * el estado solo desde los segmentos y desde un snapshot compactado más la cola.
+ *
+ * mvn test -Pbenchmark -Dtest=JournalReplayBenchmark
+ */
+@Tag("benchmark")
+class JournalReplayBenchmark {
+
+    // Ajustables con -Dbenchmark.products y -Dbenchmark.movements
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 100_000);
+    private static final int MOVEMENTS = Integer.getInteger("benchmark.movements", 2_000_000);
+    private static final int TAIL = MOVEMENTS / 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replay() throws Exception {
+        MovementJournal journal = new MovementJournal(dir, DataSize.ofMegabytes(64), 16);
+        journal.open();
+        long started = System.nanoTime();
+        for (int product = 0; product < PRODUCTS; product++) {
+            journal.append(List.of(new Adjusted(product, 1_000_000, Reason.ADJUSTMENT)));
+        }
+        for (int i = 0; i < MOVEMENTS - TAIL; i++) {
+            journal.append(movements(i));
+        }
+        double appendUs = (System.nanoTime() - started) / 1_000.0 / (PRODUCTS + MOVEMENTS - TAIL);
+
+        long full = time(journal);
+        journal.compact();
+        for (int i = MOVEMENTS - TAIL; i < MOVEMENTS; i++) {
+            journal.append(movements(i));
+        }
+        long compacted = time(journal);
+        journal.close();
+
+        System.out.printf("%10s %10s %12s %18s %22s%n", "products", "movements", "append us", "replay all ms", "snapshot + tail ms");
+        System.out.printf("%10d %10d %12.2f %18d %22d%n", PRODUCTS, MOVEMENTS, appendUs, full, compacted);
+    }
+
+    private static long time(MovementJournal journal) throws Exception {
+        long started = System.nanoTime();
+        InventorySnapshot state = journal.replay();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertEquals(PRODUCTS, state.quantities().size());
+        return elapsed;
+    }
+
+    // Compra; cada diez, una reserva que se libera en la siguiente
+    private static List<Movement> movements(int i) {
+        long product = i % PRODUCTS;
+        if (i % 10 == 0) return List.of(new Adjusted(product, -1, Reason.PURCHASE), new Reserved("r-" + i, product, 1, 0));
+        if (i % 10 == 1) return List.of(new Unreserved("r-" + (i - 1)), new Adjusted(product, 1, Reason.RELEASE));
+        return List.of(new Adjusted(product, -1, Reason.PURCHASE));
+    }
+}
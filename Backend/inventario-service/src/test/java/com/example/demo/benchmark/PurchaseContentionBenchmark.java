@@ -0,0 +1,170 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * POST /inventories/{id}/purchase con cientos de compradores simultáneos sobre un mismo
+ * producto, con el stock en la base de datos (UPDATE condicional), con las compras agrupadas
+ * por producto (inventory.purchase-batching.enabled, varias ventanas) y con el motor en
+ * memoria (inventory.stock-engine.enabled). Comprueba que se vende exactamente el stock
+ * disponible (200) y que el resto recibe 409, y mide compras por segundo frente a latencia.
+ *
+ * mvn test -Pbenchmark -Dtest=PurchaseContentionBenchmark
+ */
+@Tag("benchmark")
+class PurchaseContentionBenchmark {
+
+    // Ajustables con -Dbenchmark.buyers, -Dbenchmark.purchases, -Dbenchmark.stock y
+    // -Dbenchmark.windows (ventanas de agrupación en ms, separadas por comas)
+    private static final int BUYERS = Integer.getInteger("benchmark.buyers", 500);
+    private static final int PURCHASES = Integer.getInteger("benchmark.purchases", 20_000);
+    private static final int STOCK = Integer.getInteger("benchmark.stock", 15_000);
+    private static final String WINDOWS = System.getProperty("benchmark.windows", "0,1,5");
+    private static final long HOT_PRODUCT = 1;
+
+    private static HttpServer productStub;
+
+    @BeforeAll
+    static void startProductStub() throws IOException {
+        productStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        productStub.createContext("/products/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/products/".length());
+            byte[] body = ("{\"id\":" + id + ",\"name\":\"Producto " + id + "\",\"sku\":\"SKU-" + id
+                    + "\",\"price\":10.5,\"description\":\"Producto de prueba\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        productStub.start();
+    }
+
+    @AfterAll
+    static void stopProductStub() {
+        productStub.stop(0);
+    }
+
+    @Test
+    void hotProductPurchases() throws Exception {
+        System.out.printf("%-11s %8s %8s %8s %8s %10s %8s %8s %8s%n",
+                "stock", "buyers", "sold", "409", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        run("database");
+        for (String window : WINDOWS.split(",")) {
+            run("batch-" + window.trim() + "ms",
+                    "--inventory.purchase-batching.enabled=true",
+                    "--inventory.purchase-batching.window=" + window.trim() + "ms");
+        }
+        Path journal = Files.createTempDirectory("stock-journal").resolve("inventory-stock.journal");
+        run("engine",
+                "--inventory.stock-engine.enabled=true",
+                "--inventory.stock-engine.journal.path=" + journal);
+    }
+
+    private void run(String mode, String... modeArgs) throws Exception {
+        String[] args = Stream.concat(Stream.of(
+                        "--server.port=0",
+                        "--PRODUCT_SERVICE_URL=http://localhost:" + productStub.getAddress().getPort() + "/products",
+                        "--spring.datasource.url=jdbc:h2:mem:inventory-purchase-" + mode + ";DB_CLOSE_DELAY=-1",
+                        // Cada ejecución parte de data.sql, no de lo que dejó la anterior
+                        "--inventory.journal.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN"), Stream.of(modeArgs))
+                .toArray(String[]::new);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class).run(args)) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String base = "http://localhost:" + port + "/inventories/" + HOT_PRODUCT;
+
+            int initial = quantity(client, base);
+            send(client, HttpRequest.newBuilder(URI.create(base + "/quantity?quantityChange=" + (STOCK - initial)))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody()).build());
+
+            Semaphore inFlight = new Semaphore(BUYERS);
+            AtomicInteger sold = new AtomicInteger();
+            AtomicInteger soldOut = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            long[] latenciesMicros = new long[PURCHASES];
+            CompletableFuture<?>[] calls = new CompletableFuture<?>[PURCHASES];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < PURCHASES; i++) {
+                int index = i;
+                HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/purchase?quantityToBuy=1"))
+                        .timeout(Duration.ofSeconds(60))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+                inFlight.acquire();
+                long sent = System.nanoTime();
+                calls[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            latenciesMicros[index] = (System.nanoTime() - sent) / 1_000;
+                            if (error != null) errors.incrementAndGet();
+                            else if (response.statusCode() == 200) sold.incrementAndGet();
+                            else if (response.statusCode() == 409) soldOut.incrementAndGet();
+                            else errors.incrementAndGet();
+                            inFlight.release();
+                        });
+            }
+            CompletableFuture.allOf(calls).exceptionally(error -> null).join();
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Arrays.sort(latenciesMicros);
+            System.out.printf("%-11s %8d %8d %8d %8d %10.0f %8.1f %8.1f %8.1f%n",
+                    mode, BUYERS, sold.get(), soldOut.get(), errors.get(), PURCHASES / seconds,
+                    percentile(latenciesMicros, 0.50), percentile(latenciesMicros, 0.99),
+                    percentile(latenciesMicros, 1.0));
+
+            assertEquals(0, errors.get(), mode);
+            assertEquals(Math.min(STOCK, PURCHASES), sold.get(), mode);
+            assertEquals(Math.max(0, STOCK - PURCHASES), quantity(client, base), mode);
+        }
+    }
+
+    private static int quantity(HttpClient client, String url) throws Exception {
+        String body = send(client, HttpRequest.newBuilder(URI.create(url)).GET().build());
+        return Integer.parseInt(body.replaceAll(".*\"quantity\":(\\d+).*", "$1"));
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    private static double percentile(long[] sortedMicros, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, index)] / 1_000.0;
+    }
+}
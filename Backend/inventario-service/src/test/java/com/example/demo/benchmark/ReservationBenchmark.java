@@ -0,0 +1,113 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.application.dto.ReservationDTO;
+import com.example.demo.application.reservation.ReservationService;
+import com.example.demo.application.service.StockService;
+import com.example.demo.domain.model.StockReservation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cientos de miles de reservas activas a la vez en {@link ReservationService}: coste en
+ * memoria de reservar y confirmar, consulta de lo apartado por producto, y cuánto tardan
+ * en caducar todas (con cuántas transacciones). StockService se sustituye por un stub sin
+ * base de datos (un mock guardaría cada llamada y falsearía tiempos y memoria).
+ *
+ * mvn test -Pbenchmark -Dtest=ReservationBenchmark
+ */
+@Tag("benchmark")
+class ReservationBenchmark {
+
+    // Ajustables con -Dbenchmark.holds y -Dbenchmark.products
+    private static final int HOLDS = Integer.getInteger("benchmark.holds", 500_000);
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 1_000);
+    private static final Duration TTL = Duration.ofSeconds(20);
+
+    @Test
+    void manyConcurrentHolds() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger releaseTransactions = new AtomicInteger();
+        StockService stockService = new StockService(null, null, null, Optional.empty()) {
+            @Override
+            public int reserve(StockReservation reservation) {
+                reserved.incrementAndGet();
+                return 0;
+            }
+
+            @Override
+            public void releaseReservations(Collection<StockReservation> reservations) {
+                releaseTransactions.incrementAndGet();
+            }
+
+            @Override
+            public void deleteReservations(Collection<StockReservation> reservations) {
+            }
+
+            @Override
+            public List<StockReservation> reservations() {
+                return List.of();
+            }
+        };
+        ReservationService reservations = new ReservationService(stockService, Optional.empty(),
+                new SimpleMeterRegistry(), TTL, Duration.ofHours(1), Duration.ofMillis(100), 512);
+        reservations.start();
+
+        try {
+            long heapBefore = usedHeap();
+            List<String> ids = new ArrayList<>(HOLDS);
+            long begin = System.nanoTime();
+            for (int i = 0; i < HOLDS; i++) {
+                ReservationDTO reservation = reservations.reserve((long) (i % PRODUCTS), 1, TTL);
+                ids.add(reservation.getReservationId());
+            }
+            long reserveNanos = System.nanoTime() - begin;
+            long lastDeadline = System.nanoTime() + TTL.toNanos();
+            long heapHeld = usedHeap() - heapBefore;
+
+            begin = System.nanoTime();
+            long held = 0;
+            for (int round = 0; round < 100; round++) {
+                held = LongStream.range(0, PRODUCTS).map(reservations::held).sum();
+            }
+            long heldNanos = (System.nanoTime() - begin) / 100 / PRODUCTS;
+            assertEquals(HOLDS, held);
+
+            begin = System.nanoTime();
+            for (int i = 0; i < HOLDS; i += 2) {
+                reservations.confirm(ids.get(i));
+            }
+            long confirmNanos = System.nanoTime() - begin;
+
+            while (LongStream.range(0, PRODUCTS).map(reservations::held).sum() > 0) {
+                Thread.sleep(10);
+            }
+            long expiryLagMillis = (System.nanoTime() - lastDeadline) / 1_000_000;
+
+            System.out.printf("%10s %12s %12s %12s %12s %14s %12s%n",
+                    "holds", "reserve us", "held ns", "confirm us", "heap MB", "expiry lag ms", "release tx");
+            System.out.printf("%10d %12.2f %12d %12.2f %12.1f %14d %12d%n",
+                    HOLDS, reserveNanos / 1_000.0 / HOLDS, heldNanos, confirmNanos / 1_000.0 / (HOLDS / 2),
+                    heapHeld / 1024.0 / 1024.0, expiryLagMillis, releaseTransactions.get());
+            assertEquals(HOLDS, reserved.get());
+        } finally {
+            reservations.stop();
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.application.service.StockService;
+import com.example.demo.application.stock.StockEngine;
+import com.example.demo.domain.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compras en el motor de stock en memoria sobre un único producto, con 1, 2, 4... hilos
+ * hasta el número de núcleos: compras por segundo y latencia media por compra (CAS en la
+ * celda del hilo más el registro en el diario). La base de datos se sustituye por un mock.
+ *
+ * mvn test -Pbenchmark -Dtest=StockEngineBenchmark
+ */
+@Tag("benchmark")
+class StockEngineBenchmark {
+
+    // Ajustable con -Dbenchmark.purchases-per-thread
+    private static final int PURCHASES_PER_THREAD = Integer.getInteger("benchmark.purchases-per-thread", 1_000_000);
+    private static final long HOT_PRODUCT = 1;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void hotProductScaling() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%8s %14s %12s%n", "threads", "purchases/s", "avg us");
+        for (int threads = 1; threads <= Math.max(2, cores); threads *= 2) {
+            run(threads);
+        }
+    }
+
+    private void run(int threads) throws Exception {
+        InventoryRepository repository = mock(InventoryRepository.class);
+        when(repository.findQuantityByProductId(HOT_PRODUCT)).thenReturn(Optional.of(Integer.MAX_VALUE));
+        StockEngine engine = new StockEngine(repository, mock(StockService.class), new SimpleMeterRegistry(), 0,
+                Duration.ofMillis(200), dir.resolve("stock-" + threads + ".journal"), DataSize.ofMegabytes(256));
+        engine.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < PURCHASES_PER_THREAD; i++) {
+                        engine.purchase(HOT_PRODUCT, 1);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            long purchases = (long) threads * PURCHASES_PER_THREAD;
+            System.out.printf("%8d %14.0f %12.2f%n",
+                    threads, purchases / seconds, seconds * 1_000_000 * threads / purchases);
+            assertEquals(Integer.MAX_VALUE - purchases, engine.quantity(HOT_PRODUCT).orElseThrow());
+        } finally {
+            executor.shutdownNow();
+            engine.stop();
+        }
+        verify(repository, times(1)).findQuantityByProductId(anyLong());
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.client;
+
+import com.example.demo.application.dto.ProductResponse;
+import com.example.demo.config.ProductClientConfig;
+import com.example.demo.infrastructure.client.ProductClient;
+import com.example.demo.infrastructure.client.ProductClient.ProductBatch;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.exception.ProductServiceException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductClientTest {
+
+    private static final long FAILING_ID = 150;
+    private static final long SLOW_ID = 999;
+    private static final long BROKEN_ID = 500;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private PoolingAsyncClientConnectionManager connectionManager;
+    private CloseableHttpAsyncClient httpClient;
+    private CircuitBreaker circuitBreaker;
+    private ProductClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/products", this::handle);
+        server.start();
+
+        ProductClientConfig config = new ProductClientConfig();
+        connectionManager = config.productConnectionManager(registry, 20,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofMinutes(5));
+        httpClient = config.productHttpClient(connectionManager, HttpVersionPolicy.NEGOTIATE,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(15));
+        // Se abre con 4 llamadas y un 50 % de fallos
+        circuitBreaker = config.productCircuitBreaker(registry, 50, Duration.ofSeconds(2), 100, 4, 4,
+                Duration.ofSeconds(30), 1);
+        Bulkhead bulkhead = config.productBulkhead(registry, 4);
+        client = new ProductClient(httpClient, json, registry, circuitBreaker, bulkhead,
+                "http://localhost:" + server.getAddress().getPort() + "/products/",
+                Duration.ofMillis(500), 100, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testGetProductDecodesCborAndMapsNotFound() {
+        ProductResponse product = client.getProduct(7L).join();
+
+        assertEquals("Producto 7", product.getName());
+        assertEquals(7.0, product.getPrice());
+
+        CompletionException error = assertThrows(CompletionException.class, () -> client.getProduct(10L).join());
+        assertInstanceOf(ProductNotFoundException.class, error.getCause());
+        assertEquals(1, registry.get("inventory.product.client").tag("outcome", "NOT_FOUND").timer().count());
+    }
+
+    @Test
+    void testGetProductsFansOutInBoundedParallelBatchesWithPartialResults() {
+        List<Long> ids = LongStream.rangeClosed(1, 500).boxed().collect(Collectors.toList());
+
+        ProductBatch batch = client.getProducts(ids).join();
+
+        // 5 lotes de 100, como mucho 2 a la vez; el segundo lote (101-200) responde 500
+        assertEquals(5, requests.size());
+        assertEquals(2, peakInFlight.get());
+        assertEquals(LongStream.rangeClosed(101, 200).boxed().collect(Collectors.toSet()), batch.failed());
+        assertEquals(40, batch.missing().size());
+        assertEquals(360, batch.products().size());
+        assertTrue(batch.missing().stream().allMatch(id -> id % 10 == 0));
+        assertFalse(batch.products().containsKey(FAILING_ID));
+    }
+
+    @Test
+    void testCallTimesOut() {
+        CompletionException error = assertThrows(CompletionException.class, () -> client.getProduct(SLOW_ID).join());
+
+        assertInstanceOf(ProductServiceException.class, ProductClient.unwrap(error));
+        assertEquals(1, registry.get("inventory.product.client.errors").tag("exception", "TimeoutException").counter().count());
+    }
+
+    @Test
+    void testDeleteIsASingleRequest() {
+        client.deleteProduct(3L).join();
+
+        assertEquals(List.of("DELETE /products/3"), requests);
+        CompletionException error = assertThrows(CompletionException.class, () -> client.deleteProduct(20L).join());
+        assertInstanceOf(ProductNotFoundException.class, error.getCause());
+    }
+
+    @Test
+    void testCircuitBreakerOpensAndFailsFast() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(CompletionException.class, () -> client.getProduct(BROKEN_ID).join());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        CompletionException error = assertThrows(CompletionException.class, () -> client.getProduct(1L).join());
+
+        assertInstanceOf(CallNotPermittedException.class, error.getCause());
+        assertInstanceOf(ProductServiceException.class, ProductClient.unwrap(error));
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    void testNotFoundDoesNotOpenCircuit() {
+        for (int i = 0; i < 6; i++) {
+            assertThrows(CompletionException.class, () -> client.getProduct(20L).join());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testBulkheadRejectsCallsAboveLimit() {
+        List<CompletableFuture<ProductResponse>> slow = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            slow.add(client.getProduct(SLOW_ID));
+        }
+
+        CompletionException error = assertThrows(CompletionException.class, () -> client.getProduct(1L).join());
+
+        assertInstanceOf(BulkheadFullException.class, error.getCause());
+        // Las llamadas lentas agotan su tiempo y, como fallos, abren el circuito
+        slow.forEach(call -> assertThrows(CompletionException.class, call::join));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testPoolMetricsArePublished() throws InterruptedException {
+        client.getProduct(1L).join();
+
+        assertEquals(20, registry.get("httpcomponents.httpclient.pool.total.max").gauge().value());
+        // La conexión vuelve al pool justo después de completarse la respuesta
+        double available = 0;
+        for (int i = 0; i < 50 && available == 0; i++) {
+            Thread.sleep(20);
+            available = registry.get("httpcomponents.httpclient.pool.total.connections")
+                    .tag("state", "available").gauge().value();
+        }
+        assertEquals(1, available);
+        assertEquals(0, registry.get("httpcomponents.httpclient.pool.total.pending").gauge().value());
+    }
+
+    /** productos-service simulado: los IDs múltiplos de 10 no existen */
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getQuery();
+
+            if (query != null && query.startsWith("ids=")) {
+                sleep(100);
+                List<Long> ids = Arrays.stream(query.substring(4).split(","))
+                        .map(Long::valueOf).collect(Collectors.toList());
+                if (ids.contains(FAILING_ID)) {
+                    respond(exchange, 500, "application/json", new byte[0], false);
+                    return;
+                }
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("products", ids.stream().filter(id -> id % 10 != 0).map(this::product).toList());
+                body.put("missing", ids.stream().filter(id -> id % 10 == 0).toList());
+                respond(exchange, 200, "application/json", json.writeValueAsBytes(body), false);
+                return;
+            }
+
+            long id = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+            if (id == SLOW_ID) sleep(2_000);
+            if (id == BROKEN_ID) {
+                respond(exchange, 503, "text/plain", new byte[0], false);
+            } else if (id % 10 == 0) {
+                respond(exchange, 404, "text/plain", new byte[0], false);
+            } else if (exchange.getRequestMethod().equals("DELETE")) {
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, "application/cbor", cbor.writeValueAsBytes(product(id)), true);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private ProductResponse product(long id) {
+        return new ProductResponse(id, "Producto " + id, "SKU-" + id, (double) id, "Descripción " + id);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body, boolean gzip)
+            throws IOException {
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.demo.journal;
+
+import com.example.demo.application.service.MovementJournalService;
+import com.example.demo.application.service.StockService;
+import com.example.demo.domain.model.StockReservation;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.domain.repository.StockReservationRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.journal.InventorySnapshot;
+import com.example.demo.infrastructure.journal.Movement;
+import com.example.demo.infrastructure.journal.Movement.Adjusted;
+import com.example.demo.infrastructure.journal.Movement.Reason;
+import com.example.demo.infrastructure.journal.Movement.Reserved;
+import com.example.demo.infrastructure.journal.Movement.Unreserved;
+import com.example.demo.infrastructure.journal.MovementJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({StockService.class, MovementJournal.class, MovementJournalService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MovementJournalTest {
+
+    private static final long PRODUCT = 5_000;
+    private static final long OTHER_PRODUCT = 5_001;
+    private static final long RACED_PRODUCT = 5_002;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createTempDirectory("inventory-journal");
+        registry.add("inventory.journal.enabled", () -> "true");
+        registry.add("inventory.journal.path", dir::toString);
+    }
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private MovementJournal journal;
+
+    @Autowired
+    private InventoryRepository repository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplayRebuildsCommittedChanges() throws IOException {
+        stockService.adjust(PRODUCT, 10);
+        stockService.purchase(PRODUCT, 3);
+        // Deshecha: no queda anotada
+        assertThrows(InsufficientStockException.class, () -> stockService.purchase(PRODUCT, 50));
+        StockReservation reservation = new StockReservation("r-1", PRODUCT, 2, Instant.now().plusSeconds(60));
+        stockService.reserve(reservation);
+        stockService.adjust(OTHER_PRODUCT, 4);
+        stockService.delete(OTHER_PRODUCT);
+        stockService.applyMovements(Map.of(PRODUCT, -1), 7, 128);
+
+        InventorySnapshot replayed = journal.replay();
+
+        InventorySnapshot current = stockService.currentState();
+        assertEquals(current.quantities(), replayed.quantities());
+        assertEquals(4, replayed.quantities().get(PRODUCT));
+        assertFalse(replayed.quantities().containsKey(OTHER_PRODUCT));
+        assertEquals(new HashSet<>(current.reservations()), new HashSet<>(replayed.reservations()));
+        assertEquals(new Movement.Checkpoint(7, 128), replayed.checkpoint());
+
+        // Arranque con la base de datos vacía: queda como estaba
+        repository.deleteAllInBatch();
+        reservationRepository.deleteAllInBatch();
+        stockService.restoreState(replayed);
+        assertEquals(4, repository.findQuantityByProductId(PRODUCT).orElseThrow());
+        assertEquals(2, reservationRepository.findById("r-1").orElseThrow().getQuantity());
+
+        stockService.releaseReservations(List.of(reservationRepository.findById("r-1").orElseThrow()));
+        stockService.delete(PRODUCT);
+        InventorySnapshot afterRelease = journal.replay();
+        assertFalse(afterRelease.quantities().containsKey(PRODUCT));
+        assertTrue(afterRelease.reservations().isEmpty());
+    }
+
+    @Test
+    void testJournalFollowsCommitOrder() throws Exception {
+        stockService.adjust(RACED_PRODUCT, 10);
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+
+        // La primera transacción se detiene tras confirmar en la base de datos y antes de anotar
+        CompletableFuture<Void> adjust = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            committed.countDown();
+                            awaitQuietly(resume);
+                        }
+                    });
+                    stockService.adjust(RACED_PRODUCT, 5);
+                }));
+        assertTrue(committed.await(5, TimeUnit.SECONDS));
+
+        // El borrado ya ve el ajuste, así que debe quedar anotado detrás
+        CompletableFuture<Void> delete = CompletableFuture.runAsync(() -> stockService.delete(RACED_PRODUCT));
+        assertThrows(TimeoutException.class, () -> delete.get(300, TimeUnit.MILLISECONDS));
+        resume.countDown();
+        adjust.get(5, TimeUnit.SECONDS);
+        delete.get(5, TimeUnit.SECONDS);
+
+        assertFalse(journal.replay().quantities().containsKey(RACED_PRODUCT));
+    }
+
+    @Test
+    void testRestartReplaysSnapshotAndTail() throws IOException {
+        MovementJournal first = open();
+        first.append(List.of(new Adjusted(PRODUCT, 10, Reason.ADJUSTMENT)));
+        first.compact();
+        first.append(List.of(new Adjusted(PRODUCT, -3, Reason.PURCHASE),
+                new Reserved("r-1", PRODUCT, 3, 1_000)));
+        first.close();
+
+        MovementJournal restarted = journal(DataSize.ofMegabytes(1), 16);
+        InventorySnapshot state = restarted.replay();
+        assertEquals(7, state.quantities().get(PRODUCT));
+        assertEquals(1, state.reservations().size());
+
+        restarted.open();
+        restarted.append(List.of(new Unreserved("r-1")));
+        assertTrue(restarted.replay().reservations().isEmpty());
+        restarted.close();
+    }
+
+    @Test
+    void testDamagedTailIsIgnored() throws IOException {
+        MovementJournal journal = open();
+        journal.append(List.of(new Adjusted(PRODUCT, 10, Reason.ADJUSTMENT)));
+        journal.append(List.of(new Adjusted(PRODUCT, -4, Reason.PURCHASE)));
+        journal.close();
+
+        // Corromper el último byte de la segunda entrada, como una escritura a medias
+        Path segment = segments().get(0);
+        int lastEntry = MovementJournal.SEGMENT_HEADER_SIZE + 8 + entryLength(segment, MovementJournal.SEGMENT_HEADER_SIZE);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long lastByte = lastEntry + 8 + entryLength(segment, lastEntry) - 1;
+            file.seek(lastByte);
+            int value = file.readByte();
+            file.seek(lastByte);
+            file.writeByte(value ^ 0xFF);
+        }
+
+        assertEquals(10, journal(DataSize.ofMegabytes(1), 16).replay().quantities().get(PRODUCT));
+    }
+
+    @Test
+    void testRestartContinuesInLastSegment() throws IOException {
+        MovementJournal first = open();
+        first.append(List.of(new Adjusted(PRODUCT, 10, Reason.ADJUSTMENT)));
+        first.close();
+
+        for (int restart = 0; restart < 3; restart++) {
+            MovementJournal restarted = open();
+            restarted.append(List.of(new Adjusted(PRODUCT, -1, Reason.PURCHASE)));
+            restarted.close();
+        }
+
+        // Sin segmentos nuevos por arranque
+        assertEquals(1, segments().size());
+        assertEquals(7, journal(DataSize.ofMegabytes(1), 16).replay().quantities().get(PRODUCT));
+    }
+
+    @Test
+    void testRestartOverwritesDamagedTail() throws IOException {
+        MovementJournal journal = open();
+        journal.append(List.of(new Adjusted(PRODUCT, 10, Reason.ADJUSTMENT)));
+        journal.append(List.of(new Adjusted(PRODUCT, -4, Reason.PURCHASE)));
+        journal.close();
+
+        // Escritura a medias de la segunda entrada: longitud escrita, CRC no
+        Path segment = segments().get(0);
+        int lastEntry = MovementJournal.SEGMENT_HEADER_SIZE + 8 + entryLength(segment, MovementJournal.SEGMENT_HEADER_SIZE);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(lastEntry + 4);
+            file.writeInt(0);
+        }
+
+        MovementJournal restarted = open();
+        restarted.append(List.of(new Adjusted(PRODUCT, 5, Reason.ADJUSTMENT)));
+        restarted.close();
+
+        assertEquals(1, segments().size());
+        assertEquals(15, journal(DataSize.ofMegabytes(1), 16).replay().quantities().get(PRODUCT));
+    }
+
+    @Test
+    void testCompactionKeepsOnlyRetainedSegments() throws IOException {
+        MovementJournal journal = journal(DataSize.ofBytes(256), 2);
+        journal.open();
+        for (int i = 0; i < 100; i++) {
+            journal.append(List.of(new Adjusted(PRODUCT + i % 5, 1, Reason.ADJUSTMENT)));
+        }
+        assertTrue(segments().size() > 5);
+
+        journal.compact();
+
+        // Dos segmentos de historial más el nuevo en curso
+        assertEquals(3, segments().size());
+        InventorySnapshot state = journal.replay();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(20, state.quantities().get(PRODUCT + i));
+        }
+        journal.close();
+    }
+
+    private MovementJournal open() throws IOException {
+        MovementJournal journal = journal(DataSize.ofMegabytes(1), 16);
+        journal.open();
+        return journal;
+    }
+
+    private MovementJournal journal(DataSize segmentSize, int retainedSegments) throws IOException {
+        return new MovementJournal(dir, segmentSize, retainedSegments);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("movements-")).sorted().toList();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int entryLength(Path segment, long offset) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "r")) {
+            file.seek(offset);
+            return file.readInt();
+        }
+    }
+}
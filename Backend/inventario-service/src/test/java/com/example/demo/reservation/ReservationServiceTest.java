@@ -0,0 +1,143 @@
+package com.example.demo.reservation;
+
+import com.example.demo.application.dto.ReservationDTO;
+import com.example.demo.application.reservation.ReservationService;
+import com.example.demo.application.service.StockService;
+import com.example.demo.domain.model.Inventory;
+import com.example.demo.domain.model.StockReservation;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.domain.repository.StockReservationRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ReservationNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(StockService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationServiceTest {
+
+    private static final long PRODUCT = 4_000;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventoryRepository repository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    private final List<ReservationService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository.save(new Inventory(null, PRODUCT, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(ReservationService::stop);
+        reservationRepository.deleteAll();
+        repository.findByProductId(PRODUCT).ifPresent(repository::delete);
+    }
+
+    @Test
+    void testReservedStockIsNotForSaleUntilReleased() {
+        ReservationService reservations = start();
+
+        ReservationDTO reservation = reservations.reserve(PRODUCT, 7, Duration.ofMinutes(5));
+
+        assertEquals(3, reservation.getAvailable());
+        assertEquals(7, reservations.held(PRODUCT));
+        assertThrows(InsufficientStockException.class, () -> stockService.purchase(PRODUCT, 4));
+        assertThrows(InsufficientStockException.class, () -> reservations.reserve(PRODUCT, 4, null));
+
+        assertEquals("RELEASED", reservations.release(reservation.getReservationId()).getStatus());
+        assertEquals(0, reservations.held(PRODUCT));
+        assertEquals(10, quantity());
+        assertEquals(0, reservationRepository.count());
+        assertThrows(ReservationNotFoundException.class, () -> reservations.release(reservation.getReservationId()));
+    }
+
+    @Test
+    void testConfirmedStockStaysSold() {
+        ReservationService reservations = start();
+        ReservationDTO reservation = reservations.reserve(PRODUCT, 4, null);
+
+        assertEquals("CONFIRMED", reservations.confirm(reservation.getReservationId()).getStatus());
+
+        assertEquals(6, quantity());
+        assertEquals(0, reservations.held(PRODUCT));
+        assertEquals(0, reservationRepository.count());
+        assertThrows(ReservationNotFoundException.class, () -> reservations.confirm(reservation.getReservationId()));
+        assertThrows(IllegalArgumentException.class, () -> reservations.reserve(PRODUCT, 1, Duration.ofDays(1)));
+    }
+
+    @Test
+    void testUnconfirmedReservationsExpireAndReturnStock() {
+        ReservationService reservations = start();
+        reservations.reserve(PRODUCT, 3, Duration.ofMillis(50));
+        ReservationDTO kept = reservations.reserve(PRODUCT, 2, Duration.ofMinutes(5));
+
+        await(() -> reservations.held(PRODUCT) == 2);
+
+        assertEquals(8, quantity());
+        assertEquals(List.of(kept.getReservationId()),
+                reservationRepository.findAll().stream().map(StockReservation::getId).toList());
+        assertThrows(ReservationNotFoundException.class, () -> reservations.confirm("desconocida"));
+    }
+
+    @Test
+    void testSavedReservationsAreRescheduledOnStartup() {
+        stockService.reserve(new StockReservation("vigente", PRODUCT, 2, Instant.now().plusSeconds(300)));
+        stockService.reserve(new StockReservation("vencida", PRODUCT, 5, Instant.now().minusSeconds(1)));
+        assertEquals(3, quantity());
+
+        ReservationService reservations = start();
+
+        await(() -> reservations.held(PRODUCT) == 2);
+        assertEquals(8, quantity());
+        assertEquals("CONFIRMED", reservations.confirm("vigente").getStatus());
+    }
+
+    private ReservationService start() {
+        ReservationService reservations = new ReservationService(stockService, Optional.empty(),
+                new SimpleMeterRegistry(), Duration.ofMinutes(10), Duration.ofHours(1), Duration.ofMillis(10), 64);
+        reservations.start();
+        services.add(reservations);
+        return reservations;
+    }
+
+    private int quantity() {
+        return repository.findQuantityByProductId(PRODUCT).orElseThrow();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "tiempo de espera agotado");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.reservation;
+
+import com.example.demo.application.reservation.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    void testExpiresOnFirstTickAtOrAfterDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(0, TICK, 8);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 30);
+        wheel.schedule("ya vencido", -5);
+
+        assertEquals(List.of("ya vencido"), wheel.advance(0));
+        assertEquals(List.of(), wheel.advance(29));
+        assertEquals(List.of("a", "b"), wheel.advance(30));
+        assertEquals(List.of(), wheel.advance(1_000));
+    }
+
+    @Test
+    void testDeadlinesBeyondOneTurnWaitTheirRounds() {
+        // 8 casillas de 10: una vuelta son 80
+        TimingWheel<Integer> wheel = new TimingWheel<>(0, TICK, 8);
+        wheel.schedule(1, 20);
+        wheel.schedule(2, 100);
+        wheel.schedule(3, 260);
+
+        assertEquals(List.of(1), wheel.advance(90));
+        assertEquals(List.of(2), wheel.advance(250));
+        assertEquals(List.of(3), wheel.advance(260));
+    }
+
+    @Test
+    void testCancelledNeverExpireAndExpiredCannotBeCancelled() {
+        TimingWheel<String> wheel = new TimingWheel<>(0, TICK, 8);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelada", 20);
+        TimingWheel.Timeout<String> kept = wheel.schedule("vence", 20);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(List.of("vence"), wheel.advance(20));
+        assertFalse(kept.cancel());
+    }
+
+    @Test
+    void testManyTimeoutsExpireInDeadlineOrderByTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(0, TICK, 512);
+        int count = 200_000;
+        List<TimingWheel.Timeout<Integer>> timeouts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            timeouts.add(wheel.schedule(i, (long) i * 3));
+        }
+        for (int i = 0; i < count; i += 2) {
+            timeouts.get(i).cancel();
+        }
+
+        List<Integer> expired = new ArrayList<>();
+        for (long now = 0; now <= count * 3L; now += 1_000) {
+            expired.addAll(wheel.advance(now));
+        }
+
+        assertEquals(count / 2, expired.size());
+        assertTrue(expired.stream().allMatch(i -> i % 2 == 1));
+    }
+}
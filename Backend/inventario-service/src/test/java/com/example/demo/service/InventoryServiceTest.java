@@ -0,0 +1,187 @@
+package com.example.demo.service;
+
+import com.example.demo.application.dto.CartItemDTO;
+import com.example.demo.application.dto.ProductInventoryDTO;
+import com.example.demo.application.dto.ProductInventoryPageDTO;
+import com.example.demo.application.dto.ProductInventoryResponseDTO;
+import com.example.demo.application.dto.ProductResponse;
+import com.example.demo.application.reservation.ReservationService;
+import com.example.demo.application.service.InventoryService;
+import com.example.demo.application.service.ProductCacheService;
+import com.example.demo.application.service.StockService;
+import com.example.demo.domain.model.Inventory;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.infrastructure.client.ProductClient;
+import com.example.demo.infrastructure.client.ProductClient.ProductBatch;
+import com.example.demo.infrastructure.client.ProductClient.ProductPage;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.exception.ProductServiceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InventoryServiceTest {
+
+    private final InventoryRepository repository = mock(InventoryRepository.class);
+    private final ProductClient client = mock(ProductClient.class);
+    private final ProductCacheService productCache = mock(ProductCacheService.class);
+    private final StockService stockService = mock(StockService.class);
+    private final ReservationService reservationService = mock(ReservationService.class);
+    private InventoryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new InventoryService(repository, client, productCache, stockService, reservationService, Optional.empty(), Optional.empty(), 1000, 3);
+
+        // Catálogo de 7 productos en páginas de 3; solo los IDs pares tienen inventario
+        when(client.listProducts(any(), eq(3))).thenAnswer(call -> {
+            String after = call.getArgument(0);
+            long from = after == null ? 1 : Long.parseLong(after) + 1;
+            long to = Math.min(from + 2, 7);
+            List<ProductResponse> items = LongStream.rangeClosed(from, to).mapToObj(InventoryServiceTest::product).toList();
+            return CompletableFuture.completedFuture(new ProductPage(items, to < 7 ? String.valueOf(to) : null));
+        });
+        when(repository.findByProductIdIn(anyCollection())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            return ids.stream().filter(id -> id % 2 == 0).map(id -> new Inventory(id, id, (int) (id * 10))).toList();
+        });
+    }
+
+    @Test
+    void testPageReadsOnlyInventoryOfItsProducts() {
+        ProductInventoryPageDTO page = service.getInventoryPage("3", 3);
+
+        assertEquals(List.of(4L, 5L, 6L), page.getItems().stream().map(ProductInventoryResponseDTO::getId).toList());
+        assertEquals(List.of(40, 0, 60), page.getItems().stream().map(ProductInventoryResponseDTO::getQuantity).toList());
+        assertEquals("6", page.getNextCursor());
+        verify(repository).findByProductIdIn(argThat(ids -> List.copyOf(ids).equals(List.of(4L, 5L, 6L))));
+        verify(repository, never()).findAll();
+        verify(productCache).putAll(anyCollection());
+    }
+
+    @Test
+    void testPageLimitIsBounded() {
+        assertThrows(IllegalArgumentException.class, () -> service.getInventoryPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getInventoryPage(null, 4));
+    }
+
+    @Test
+    void testForEachInventoryWalksTheWholeCatalog() {
+        List<ProductInventoryResponseDTO> seen = new ArrayList<>();
+
+        service.forEachInventory(service.getInventoryPage(null, service.getCatalogPageSize()), seen::add);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), seen.stream().map(ProductInventoryResponseDTO::getId).toList());
+        assertEquals(List.of(0, 20, 0, 40, 0, 60, 0), seen.stream().map(ProductInventoryResponseDTO::getQuantity).toList());
+        // Una llamada remota y una consulta IN por página
+        verify(client, times(3)).listProducts(any(), eq(3));
+        verify(repository, times(3)).findByProductIdIn(anyCollection());
+    }
+
+    @Test
+    void testNextPageIsRequestedBeforeCurrentOneIsConsumed() {
+        List<String> events = new ArrayList<>();
+        when(client.listProducts(eq("3"), eq(3))).thenAnswer(call -> {
+            events.add("fetch page 2");
+            return CompletableFuture.completedFuture(new ProductPage(List.of(product(4L)), null));
+        });
+
+        service.forEachInventory(service.getInventoryPage(null, 3), item -> events.add("write " + item.getId()));
+
+        assertEquals(List.of("fetch page 2", "write 1", "write 2", "write 3", "write 4"), events);
+    }
+
+    @Test
+    void testFailedPageStopsTheWalk() {
+        when(client.listProducts(eq("3"), eq(3)))
+                .thenReturn(CompletableFuture.failedFuture(new ProductServiceException("caído")));
+        List<ProductInventoryResponseDTO> seen = new ArrayList<>();
+
+        ProductInventoryPageDTO first = service.getInventoryPage(null, 3);
+
+        assertThrows(ProductServiceException.class, () -> service.forEachInventory(first, seen::add));
+        assertEquals(3, seen.size());
+    }
+
+    @Test
+    void testPurchaseReturnsRemainingStock() {
+        when(productCache.getProduct(1L)).thenReturn(CompletableFuture.completedFuture(product(1L)));
+        when(stockService.purchase(1L, 5)).thenReturn(45);
+
+        ProductInventoryDTO result = service.purchaseProduct(1L, 5);
+
+        assertEquals(45, result.getQuantity());
+        assertEquals("Producto 1", result.getName());
+    }
+
+    @Test
+    void testPurchaseDoesNotTouchStockWithoutRemoteProduct() {
+        when(productCache.getProduct(1L)).thenReturn(CompletableFuture.failedFuture(new ProductNotFoundException(1L)));
+
+        assertThrows(ProductNotFoundException.class, () -> service.purchaseProduct(1L, 5));
+        assertThrows(IllegalArgumentException.class, () -> service.purchaseProduct(1L, 0));
+        verifyNoInteractions(stockService);
+    }
+
+    @Test
+    void testPurchasePropagatesSoldOut() {
+        when(productCache.getProduct(1L)).thenReturn(CompletableFuture.completedFuture(product(1L)));
+        when(stockService.purchase(1L, 5)).thenThrow(new InsufficientStockException(1L, 5, 2));
+
+        InsufficientStockException error = assertThrows(InsufficientStockException.class,
+                () -> service.purchaseProduct(1L, 5));
+        assertEquals(2, error.getAvailable());
+    }
+
+    @Test
+    void testCartMergesItemsAndResolvesProductsInOneBatch() {
+        when(productCache.getProducts(anyCollection())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            Map<Long, ProductResponse> products = new LinkedHashMap<>();
+            ids.forEach(id -> products.put(id, product(id)));
+            return CompletableFuture.completedFuture(new ProductBatch(products, Set.of(), Set.of()));
+        });
+        when(stockService.purchaseCart(any())).thenReturn(Map.of(2L, 10, 5L, 40));
+
+        List<ProductInventoryDTO> result = service.purchaseCart(List.of(
+                new CartItemDTO(5L, 1), new CartItemDTO(2L, 3), new CartItemDTO(5L, 2)));
+
+        assertEquals(List.of(2L, 5L), result.stream().map(ProductInventoryDTO::getId).toList());
+        assertEquals(List.of(10, 40), result.stream().map(ProductInventoryDTO::getQuantity).toList());
+        verify(productCache, times(1)).getProducts(anyCollection());
+        verify(stockService).purchaseCart(new TreeMap<>(Map.of(2L, 3, 5L, 3)));
+    }
+
+    @Test
+    void testCartDoesNotTouchStockWithoutEveryRemoteProduct() {
+        when(productCache.getProducts(anyCollection())).thenReturn(CompletableFuture.completedFuture(
+                new ProductBatch(Map.of(1L, product(1)), Set.of(2L), Set.of())));
+
+        assertThrows(ProductNotFoundException.class, () -> service.purchaseCart(List.of(
+                new CartItemDTO(1L, 1), new CartItemDTO(2L, 1))));
+        assertThrows(IllegalArgumentException.class, () -> service.purchaseCart(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> service.purchaseCart(List.of(new CartItemDTO(1L, 0))));
+        assertThrows(IllegalArgumentException.class, () -> service.purchaseCart(List.of(
+                new CartItemDTO(1L, Integer.MAX_VALUE), new CartItemDTO(1L, 1))));
+        verify(stockService, never()).purchaseCart(any());
+    }
+
+    private static ProductResponse product(long id) {
+        return new ProductResponse(id, "Producto " + id, "SKU-" + id, (double) id, "Descripción " + id);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.application.dto.ProductResponse;
+import com.example.demo.application.service.ProductCacheService;
+import com.example.demo.infrastructure.client.ProductClient;
+import com.example.demo.infrastructure.client.ProductClient.ProductBatch;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.exception.ProductServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductCacheServiceTest {
+
+    private final ProductClient client = mock(ProductClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ProductCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCacheService(client, registry, 100,
+                Duration.ofMinutes(10), Duration.ofMillis(200), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testSecondReadIsServedFromCache() {
+        when(client.getProduct(1L)).thenReturn(CompletableFuture.completedFuture(product(1L, "Router")));
+
+        assertEquals("Router", cache.getProduct(1L).join().getName());
+        assertEquals("Router", cache.getProduct(1L).join().getName());
+
+        verify(client, times(1)).getProduct(1L);
+        assertEquals(0.5, cache.stats().getHitRate());
+        assertEquals(1, registry.get("cache.gets").tag("cache", ProductCacheService.CACHE_NAME)
+                .tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testMissingProductIsCachedAsNegative() {
+        when(client.getProduct(9L)).thenReturn(CompletableFuture.failedFuture(new ProductNotFoundException(9L)));
+
+        for (int i = 0; i < 3; i++) {
+            CompletionException error = assertThrows(CompletionException.class, () -> cache.getProduct(9L).join());
+            assertInstanceOf(ProductNotFoundException.class, error.getCause());
+        }
+
+        verify(client, times(1)).getProduct(9L);
+    }
+
+    @Test
+    void testStaleValueIsServedWhileRefreshing() throws InterruptedException {
+        CompletableFuture<ProductResponse> refresh = new CompletableFuture<>();
+        when(client.getProduct(2L)).thenReturn(
+                CompletableFuture.completedFuture(product(2L, "Switch")), refresh);
+
+        cache.getProduct(2L).join();
+        Thread.sleep(300);
+
+        // Pasado refresh-after se devuelve el valor guardado y se recarga en segundo plano
+        assertEquals("Switch", cache.getProduct(2L).join().getName());
+        verify(client, times(2)).getProduct(2L);
+
+        refresh.complete(product(2L, "Switch PoE"));
+        assertEquals("Switch PoE", cache.getProduct(2L).join().getName());
+    }
+
+    @Test
+    void testFailedRefreshKeepsServingStaleValue() throws InterruptedException {
+        when(client.getProduct(3L)).thenReturn(
+                CompletableFuture.completedFuture(product(3L, "Hub")),
+                CompletableFuture.failedFuture(new ProductServiceException("caído")));
+
+        cache.getProduct(3L).join();
+        Thread.sleep(300);
+
+        assertEquals("Hub", cache.getProduct(3L).join().getName());
+        assertEquals("Hub", cache.getProduct(3L).join().getName());
+    }
+
+    @Test
+    void testBatchLoadsOnlyUncachedIdsAndDoesNotCacheFailures() {
+        when(client.getProduct(1L)).thenReturn(CompletableFuture.completedFuture(product(1L, "Router")));
+        cache.getProduct(1L).join();
+
+        when(client.getProducts(anyCollection())).thenReturn(CompletableFuture.completedFuture(new ProductBatch(
+                Map.of(2L, product(2L, "Switch")), Set.of(3L), Set.of(4L))));
+
+        ProductBatch batch = cache.getProducts(List.of(1L, 2L, 3L, 4L)).join();
+
+        verify(client).getProducts(argThat(ids -> Set.copyOf(ids).equals(Set.of(2L, 3L, 4L))));
+        assertEquals(Set.of(1L, 2L), batch.products().keySet());
+        assertEquals(Set.of(3L), batch.missing());
+        assertEquals(Set.of(4L), batch.failed());
+
+        // Los encontrados e inexistentes quedan en caché; el fallido se vuelve a pedir
+        cache.getProducts(List.of(1L, 2L, 3L, 4L)).join();
+        verify(client).getProducts(argThat(ids -> Set.copyOf(ids).equals(Set.of(4L))));
+    }
+
+    private static ProductResponse product(Long id, String name) {
+        return new ProductResponse(id, name, "SKU-" + id, 10.0, "Descripción");
+    }
+}
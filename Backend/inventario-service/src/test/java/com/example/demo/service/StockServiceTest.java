@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import com.example.demo.application.service.StockService;
+import com.example.demo.domain.model.Inventory;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(StockService.class)
+// Cada llamada confirma su propia transacción, como en producción
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockServiceTest {
+
+    private static final long HOT_PRODUCT = 1_000;
+    private static final long OTHER_PRODUCT = 1_001;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventoryRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        repository.findByProductId(HOT_PRODUCT).ifPresent(repository::delete);
+        repository.findByProductId(OTHER_PRODUCT).ifPresent(repository::delete);
+    }
+
+    @Test
+    void testPurchaseDistinguishesSoldOutFromMissing() {
+        repository.save(new Inventory(null, HOT_PRODUCT, 3));
+
+        assertEquals(1, stockService.purchase(HOT_PRODUCT, 2));
+
+        InsufficientStockException soldOut = assertThrows(InsufficientStockException.class,
+                () -> stockService.purchase(HOT_PRODUCT, 2));
+        assertEquals(1, soldOut.getAvailable());
+        assertThrows(ProductNotFoundException.class, () -> stockService.purchase(HOT_PRODUCT + 1, 1));
+        assertEquals(1, repository.findQuantityByProductId(HOT_PRODUCT).orElseThrow());
+    }
+
+    @Test
+    void testAdjustCreatesRowAndNeverGoesBelowZero() {
+        assertEquals(5, stockService.adjust(HOT_PRODUCT, 5));
+        assertEquals(0, stockService.adjust(HOT_PRODUCT, -8));
+        assertEquals(4, stockService.adjust(HOT_PRODUCT, 4));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.saveAndFlush(new Inventory(null, HOT_PRODUCT, 1)));
+    }
+
+    @Test
+    void testCartIsAllOrNothing() {
+        repository.save(new Inventory(null, HOT_PRODUCT, 10));
+        repository.save(new Inventory(null, OTHER_PRODUCT, 2));
+
+        InsufficientStockException soldOut = assertThrows(InsufficientStockException.class,
+                () -> stockService.purchaseCart(new TreeMap<>(Map.of(HOT_PRODUCT, 4, OTHER_PRODUCT, 3))));
+        assertEquals(OTHER_PRODUCT, soldOut.getProductId());
+        assertEquals(10, repository.findQuantityByProductId(HOT_PRODUCT).orElseThrow(), "la transacción se deshace");
+
+        assertThrows(ProductNotFoundException.class,
+                () -> stockService.purchaseCart(new TreeMap<>(Map.of(HOT_PRODUCT, 4, OTHER_PRODUCT + 1, 1))));
+        assertEquals(10, repository.findQuantityByProductId(HOT_PRODUCT).orElseThrow());
+
+        assertEquals(Map.of(HOT_PRODUCT, 6, OTHER_PRODUCT, 0),
+                stockService.purchaseCart(new TreeMap<>(Map.of(HOT_PRODUCT, 4, OTHER_PRODUCT, 2))));
+    }
+
+    @Test
+    void testOverlappingCartsDoNotDeadlock() throws Exception {
+        int stock = 200;
+        repository.save(new Inventory(null, HOT_PRODUCT, stock));
+        repository.save(new Inventory(null, OTHER_PRODUCT, stock));
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < 100; i++) {
+                // La mitad de los carritos llega con los productos en orden inverso
+                Map<Long, Integer> cart = new LinkedHashMap<>();
+                if (i % 2 == 0) {
+                    cart.put(HOT_PRODUCT, 1);
+                    cart.put(OTHER_PRODUCT, 1);
+                } else {
+                    cart.put(OTHER_PRODUCT, 1);
+                    cart.put(HOT_PRODUCT, 1);
+                }
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    return stockService.purchaseCart(new TreeMap<>(cart));
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(stock - 100, repository.findQuantityByProductId(HOT_PRODUCT).orElseThrow());
+        assertEquals(stock - 100, repository.findQuantityByProductId(OTHER_PRODUCT).orElseThrow());
+    }
+
+    @Test
+    void testConcurrentPurchasesNeverOversell() throws Exception {
+        int stock = 150;
+        int buyers = 400;
+        repository.save(new Inventory(null, HOT_PRODUCT, stock));
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        List<Integer> remaining = new CopyOnWriteArrayList<>();
+        List<Future<?>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < buyers; i++) {
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        remaining.add(stockService.purchase(HOT_PRODUCT, 1));
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        soldOut.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(stock, sold.get());
+        assertEquals(buyers - stock, soldOut.get());
+        assertEquals(0, repository.findQuantityByProductId(HOT_PRODUCT).orElseThrow());
+        // Cada compra ve un stock restante distinto: ninguna se pisó con otra
+        assertEquals(stock, remaining.stream().distinct().count());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.stock;
+
+import com.example.demo.application.service.StockService;
+import com.example.demo.application.stock.PurchaseCoalescer;
+import com.example.demo.domain.model.Inventory;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(StockService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseCoalescerTest {
+
+    private static final long PRODUCT = 3_000;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventoryRepository repository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        repository.findByProductId(PRODUCT).ifPresent(repository::delete);
+    }
+
+    @Test
+    void testSinglePurchaseKeepsPerCallerResults() {
+        repository.save(new Inventory(null, PRODUCT, 3));
+        PurchaseCoalescer coalescer = coalescer(Duration.ZERO, 64);
+
+        assertEquals(1, coalescer.purchase(PRODUCT, 2));
+        InsufficientStockException soldOut = assertThrows(InsufficientStockException.class,
+                () -> coalescer.purchase(PRODUCT, 2));
+        assertEquals(1, soldOut.getAvailable());
+        assertThrows(ProductNotFoundException.class, () -> coalescer.purchase(PRODUCT + 1, 1));
+        assertEquals(1, repository.findQuantityByProductId(PRODUCT).orElseThrow());
+    }
+
+    @Test
+    void testAllocationFollowsArrivalOrder() {
+        repository.save(new Inventory(null, PRODUCT, 5));
+
+        List<StockService.Allocation> allocations = stockService.purchaseAll(PRODUCT, List.of(2, 4, 3, 1));
+
+        assertEquals(List.of(
+                new StockService.Allocation(true, 3),
+                new StockService.Allocation(false, 3),
+                new StockService.Allocation(true, 0),
+                new StockService.Allocation(false, 0)), allocations);
+        assertEquals(0, repository.findQuantityByProductId(PRODUCT).orElseThrow());
+    }
+
+    @Test
+    void testConcurrentPurchasesAreBatchedAndNeverOversell() throws Exception {
+        int stock = 150;
+        int buyers = 400;
+        repository.save(new Inventory(null, PRODUCT, stock));
+        PurchaseCoalescer coalescer = coalescer(Duration.ofMillis(5), 32);
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        List<Integer> remaining = new CopyOnWriteArrayList<>();
+        List<Future<?>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < buyers; i++) {
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        remaining.add(coalescer.purchase(PRODUCT, 1));
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        soldOut.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(stock, sold.get());
+        assertEquals(buyers - stock, soldOut.get());
+        assertEquals(0, repository.findQuantityByProductId(PRODUCT).orElseThrow());
+        assertEquals(stock, remaining.stream().distinct().count());
+
+        // Menos transacciones que compras, y ningún lote por encima del máximo
+        DistributionSummary batches = meterRegistry.get("inventory.purchase.batch.size").summary();
+        assertEquals(buyers, (long) batches.totalAmount());
+        assertTrue(batches.count() < buyers, "lotes: " + batches.count());
+        assertTrue(batches.max() <= 32);
+    }
+
+    @Test
+    void testMissingProductFailsEveryPurchaseInBatch() throws Exception {
+        PurchaseCoalescer coalescer = coalescer(Duration.ofMillis(50), 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                calls.add(executor.submit(() -> coalescer.purchase(PRODUCT, 1)));
+            }
+            for (Future<Integer> call : calls) {
+                ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS));
+                assertInstanceOf(ProductNotFoundException.class, error.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PurchaseCoalescer coalescer(Duration window, int maxBatchSize) {
+        return new PurchaseCoalescer(stockService, meterRegistry, window, maxBatchSize);
+    }
+}
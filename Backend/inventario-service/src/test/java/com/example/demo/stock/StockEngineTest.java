@@ -0,0 +1,229 @@
+package com.example.demo.stock;
+
+import com.example.demo.application.service.StockService;
+import com.example.demo.application.stock.StockEngine;
+import com.example.demo.domain.model.Inventory;
+import com.example.demo.domain.repository.InventoryRepository;
+import com.example.demo.domain.repository.StockJournalCheckpointRepository;
+import com.example.demo.infrastructure.exception.InsufficientStockException;
+import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.journal.StockJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(StockService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockEngineTest {
+
+    private static final long PRODUCT = 2_000;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InventoryRepository repository;
+
+    @Autowired
+    private StockJournalCheckpointRepository checkpointRepository;
+
+    @TempDir
+    Path dir;
+
+    private final List<StockEngine> engines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository.save(new Inventory(null, PRODUCT, 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engines.forEach(StockEngine::stop);
+        repository.findByProductId(PRODUCT).ifPresent(repository::delete);
+        repository.findByProductId(PRODUCT + 1).ifPresent(repository::delete);
+        checkpointRepository.deleteAll();
+    }
+
+    @Test
+    void testPurchasesAreServedFromMemoryAndFlushedInBatches() {
+        StockEngine engine = start(DataSize.ofMegabytes(1));
+
+        for (int i = 0; i < 10; i++) {
+            engine.purchase(PRODUCT, 3);
+        }
+
+        assertEquals(70, engine.quantity(PRODUCT).orElseThrow());
+        assertEquals(100, persisted(), "la base de datos va por detrás hasta el volcado");
+        engine.flush();
+        assertEquals(70, persisted());
+        assertEquals(StockJournal.HEADER_SIZE + 10 * StockJournal.RECORD_SIZE,
+                stockService.journalCheckpoint().orElseThrow().getPosition());
+    }
+
+    @Test
+    void testSoldOutMissingAndAdjust() {
+        StockEngine engine = start(DataSize.ofMegabytes(1));
+
+        InsufficientStockException soldOut = assertThrows(InsufficientStockException.class,
+                () -> engine.purchase(PRODUCT, 101));
+        assertEquals(100, soldOut.getAvailable());
+        assertThrows(ProductNotFoundException.class, () -> engine.purchase(PRODUCT + 1, 1));
+
+        assertEquals(0, engine.adjust(PRODUCT, -150));
+        assertEquals(20, engine.adjust(PRODUCT, 20));
+        assertEquals(7, engine.adjust(PRODUCT + 1, 7));
+        engine.flush();
+        assertEquals(20, persisted());
+    }
+
+    @Test
+    void testCartIsAllOrNothingInMemory() {
+        repository.save(new Inventory(null, PRODUCT + 1, 5));
+        StockEngine engine = start(DataSize.ofMegabytes(1));
+
+        assertThrows(InsufficientStockException.class,
+                () -> engine.purchaseCart(new TreeMap<>(Map.of(PRODUCT, 30, PRODUCT + 1, 6))));
+        assertEquals(100, engine.quantity(PRODUCT).orElseThrow(), "lo restado se devuelve");
+
+        assertEquals(Map.of(PRODUCT, 70, PRODUCT + 1, 0),
+                engine.purchaseCart(new TreeMap<>(Map.of(PRODUCT, 30, PRODUCT + 1, 5))));
+        engine.flush();
+        assertEquals(70, persisted());
+        assertEquals(0, repository.findQuantityByProductId(PRODUCT + 1).orElseThrow());
+    }
+
+    @Test
+    void testAcknowledgedPurchasesSurviveACrash() {
+        StockEngine crashed = new StockEngine(repository, stockService, new SimpleMeterRegistry(), 4,
+                Duration.ofHours(1), dir.resolve("stock.journal"), DataSize.ofMegabytes(1));
+        crashed.start();
+        crashed.purchase(PRODUCT, 10);
+        crashed.flush();
+        crashed.purchase(PRODUCT, 5);
+        crashed.purchase(PRODUCT, 1);
+        // Sin stop(): el proceso cae antes del siguiente volcado
+        assertEquals(90, persisted());
+
+        start(DataSize.ofMegabytes(1));
+
+        assertEquals(84, persisted());
+    }
+
+    @Test
+    void testJournalIsDiscardedWithoutCheckpoint() {
+        StockEngine crashed = new StockEngine(repository, stockService, new SimpleMeterRegistry(), 4,
+                Duration.ofHours(1), dir.resolve("stock.journal"), DataSize.ofMegabytes(1));
+        crashed.start();
+        crashed.purchase(PRODUCT, 10);
+        crashed.flush();
+        crashed.purchase(PRODUCT, 5);
+
+        // Base de datos en memoria sembrada de nuevo: sin punto guardado, con el stock inicial
+        checkpointRepository.deleteAll();
+        stockService.adjust(PRODUCT, 10);
+        start(DataSize.ofMegabytes(1));
+
+        assertEquals(100, persisted(), "no se aplica otra vez la compra ya volcada");
+        assertTrue(stockService.journalCheckpoint().isPresent());
+    }
+
+    @Test
+    void testTornRecordEndsTheJournal() throws Exception {
+        StockEngine crashed = new StockEngine(repository, stockService, new SimpleMeterRegistry(), 4,
+                Duration.ofHours(1), dir.resolve("stock.journal"), DataSize.ofMegabytes(1));
+        crashed.start();
+        crashed.purchase(PRODUCT, 10);
+        crashed.purchase(PRODUCT, 20);
+        // El segundo registro queda a medias
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("stock.journal").toFile(), "rw")) {
+            file.seek(StockJournal.HEADER_SIZE + StockJournal.RECORD_SIZE + 8);
+            file.writeInt(-99);
+        }
+
+        start(DataSize.ofMegabytes(1));
+
+        assertEquals(90, persisted());
+    }
+
+    @Test
+    void testConcurrentPurchasesAreAllJournaled() throws Exception {
+        repository.save(new Inventory(null, PRODUCT + 1, 100));
+        // Diario pequeño: se vuelca y se reinicia mientras otros hilos anexan
+        DataSize capacity = DataSize.ofBytes(StockJournal.HEADER_SIZE + 16 * StockJournal.RECORD_SIZE);
+        StockEngine crashed = new StockEngine(repository, stockService, new SimpleMeterRegistry(), 4,
+                Duration.ofHours(1), dir.resolve("stock.journal"), capacity);
+        crashed.start();
+
+        ExecutorService buyers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> purchases = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                boolean cart = i % 4 == 0;
+                purchases.add(buyers.submit(() -> cart
+                        ? crashed.purchaseCart(new TreeMap<>(Map.of(PRODUCT, 1, PRODUCT + 1, 1)))
+                        : crashed.purchase(PRODUCT, 1)));
+            }
+            for (Future<?> purchase : purchases) {
+                purchase.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            buyers.shutdown();
+        }
+
+        // Sin volcar lo último: sale del diario al arrancar de nuevo
+        start(capacity);
+
+        assertEquals(20, persisted());
+        assertEquals(80, repository.findQuantityByProductId(PRODUCT + 1).orElseThrow());
+    }
+
+    @Test
+    void testFullJournalIsFlushedAndReused() {
+        // Cabecera y 8 registros: cada 8 compras se vuelca y se reinicia
+        StockEngine engine = start(DataSize.ofBytes(StockJournal.HEADER_SIZE + 8 * StockJournal.RECORD_SIZE));
+
+        for (int i = 0; i < 50; i++) {
+            engine.purchase(PRODUCT, 1);
+        }
+        engine.flush();
+
+        assertEquals(50, persisted());
+        assertEquals(50, engine.quantity(PRODUCT).orElseThrow());
+    }
+
+    private StockEngine start(DataSize capacity) {
+        StockEngine engine = new StockEngine(repository, stockService, new SimpleMeterRegistry(), 4,
+                Duration.ofHours(1), dir.resolve("stock.journal"), capacity);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private int persisted() {
+        return repository.findQuantityByProductId(PRODUCT).orElseThrow();
+    }
+}
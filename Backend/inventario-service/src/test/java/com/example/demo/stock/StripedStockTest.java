@@ -0,0 +1,69 @@
+package com.example.demo.stock;
+
+import com.example.demo.application.stock.StripedStock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedStockTest {
+
+    @Test
+    void testTakesAcrossStripesWithoutGoingNegative() {
+        StripedStock stock = new StripedStock(10, 8);
+
+        // 10 repartido en 8 celdas: ninguna tiene 5, se decide sobre el total
+        assertTrue(stock.tryTake(5));
+        assertTrue(stock.tryTake(5));
+        assertFalse(stock.tryTake(1));
+        assertEquals(0, stock.available());
+
+        stock.add(3);
+        assertEquals(2, stock.takeUpTo(2));
+        assertEquals(1, stock.takeUpTo(5));
+        assertEquals(0, stock.available());
+        assertThrows(IllegalArgumentException.class, () -> new StripedStock(1, 3));
+    }
+
+    @Test
+    void testConcurrentTakersSellExactlyTheStock() throws Exception {
+        int quantity = 100_000;
+        int threads = 16;
+        StripedStock stock = new StripedStock(quantity, 8);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int size = 1 + t % 3;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    // Cada hilo compra hasta encontrarse el producto agotado
+                    while (stock.tryTake(size)) {
+                        sold.addAndGet(size);
+                    }
+                    rejected.incrementAndGet();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Solo pueden quedar unidades sueltas que no alcanzan para un pedido de 2 o 3
+        assertTrue(stock.available() >= 0 && stock.available() < 3);
+        assertEquals(quantity, sold.get() + stock.available());
+        assertEquals(threads, rejected.get());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponseDTO {
+    private List<ProductResponseDTO> products;
+    private List<Long> missing;
+}
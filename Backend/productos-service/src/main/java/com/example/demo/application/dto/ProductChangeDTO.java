@@ -0,0 +1,18 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeDTO {
+    private Long seq;
+    private String type;
+    private Long productId;
+    private Long version;
+    private Instant changedAt;
+    private ProductResponseDTO product;
+}
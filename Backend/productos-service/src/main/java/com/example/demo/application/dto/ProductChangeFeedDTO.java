@@ -0,0 +1,18 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeFeedDTO {
+    private List<ProductChangeDTO> changes;
+    // Valor de "since" para la siguiente consulta
+    private long lastSeq;
+    private boolean hasMore;
+    // Se compactaron borrados posteriores a "since": hay que recargar el catálogo completo
+    private boolean resetRequired;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCursorPageDTO {
+    // ProductResponseDTO, o mapas parciales cuando se pide ?fields=
+    private List<?> items;
+    private String nextCursor;
+}
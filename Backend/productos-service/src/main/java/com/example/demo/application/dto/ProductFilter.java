@@ -0,0 +1,11 @@
+package com.example.demo.application.dto;
+
+/**
+ * Filtros opcionales del listado por cursor; un valor null no filtra.
+ */
+public record ProductFilter(Double minPrice, Double maxPrice, String nameStartsWith) {
+
+    public static ProductFilter none() {
+        return new ProductFilter(null, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResultDTO {
+    private String query;
+    private long total;
+    private int page;
+    private int size;
+    private List<ProductResponseDTO> items;
+}
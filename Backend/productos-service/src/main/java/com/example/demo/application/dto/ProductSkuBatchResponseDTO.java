@@ -0,0 +1,14 @@
+package com.example.demo.application.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSkuBatchResponseDTO {
+    private List<ProductResponseDTO> products;
+    private List<String> missing;
+}
@@ -0,0 +1,64 @@
+package com.example.demo.application.mapper;
+
+import com.example.demo.infrastructure.exception.InvalidProductException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Convierte la posición keyset de la última fila de una página (p. ej. {price, id}) en un
+ * cursor opaco base64url, y viceversa.
+ */
+public class CursorMapper {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private CursorMapper() {
+        // Constructor privado para evitar instanciación
+    }
+
+    public static String encode(Map<String, ?> keys) {
+        if (keys == null || keys.isEmpty()) return null;
+
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.writeValueAsBytes(keys));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo generar el cursor", e);
+        }
+    }
+
+    public static Map<String, Object> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+
+        try {
+            byte[] raw = Base64.getUrlDecoder().decode(cursor);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            JSON.readValue(raw, new TypeReference<Map<String, Object>>() {})
+                    .forEach((field, value) -> keys.put(field, typed(cursor, field, value)));
+            return keys;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidProductException("Cursor inválido: " + cursor);
+        }
+    }
+
+    private static Object typed(String cursor, String field, Object value) {
+        // Un null explícito no es una posición: la consulta keyset no lo sabe comparar
+        if (value == null) throw new InvalidProductException("Cursor inválido: " + cursor);
+
+        return switch (field) {
+            case "id", "version" -> number(cursor, value).longValue();
+            case "price" -> number(cursor, value).doubleValue();
+            default -> value.toString();
+        };
+    }
+
+    private static Number number(String cursor, Object value) {
+        if (value instanceof Number number) return number;
+        throw new InvalidProductException("Cursor inválido: " + cursor);
+    }
+}
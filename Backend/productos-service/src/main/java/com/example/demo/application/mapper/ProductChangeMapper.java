@@ -0,0 +1,57 @@
+package com.example.demo.application.mapper;
+
+import com.example.demo.application.dto.ProductChangeDTO;
+import com.example.demo.application.dto.ProductResponseDTO;
+import com.example.demo.domain.event.ProductChangedEvent;
+import com.example.demo.domain.event.ProductChangedEvent.ChangeType;
+import com.example.demo.domain.model.Product;
+import com.example.demo.domain.model.ProductChange;
+
+import java.time.Instant;
+
+public class ProductChangeMapper {
+
+    private ProductChangeMapper() {
+        // Constructor privado para evitar instanciación
+    }
+
+    public static ProductChange toEntity(long seq, ProductChangedEvent event, Instant changedAt) {
+        ProductChange.ProductChangeBuilder change = ProductChange.builder()
+                .seq(seq)
+                .type(event.type())
+                .productId(event.productId())
+                .changedAt(changedAt);
+
+        Product product = event.product();
+        if (product != null) {
+            change.version(product.getVersion())
+                    .name(product.getName())
+                    .sku(product.getSku())
+                    .price(product.getPrice())
+                    .description(product.getDescription());
+        }
+        return change.build();
+    }
+
+    public static ProductChangeDTO toDTO(ProductChange change) {
+        if (change == null) return null;
+
+        ProductResponseDTO product = change.getType() == ChangeType.DELETED ? null
+                : ProductResponseDTO.builder()
+                        .id(change.getProductId())
+                        .name(change.getName())
+                        .sku(change.getSku())
+                        .price(change.getPrice())
+                        .description(change.getDescription())
+                        .build();
+
+        return ProductChangeDTO.builder()
+                .seq(change.getSeq())
+                .type(change.getType().name())
+                .productId(change.getProductId())
+                .version(change.getVersion())
+                .changedAt(change.getChangedAt())
+                .product(product)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.application.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapa en memoria SKU -> ID (y su inverso) para resolver SKUs en O(1).
+ * El inverso permite retirar el SKU anterior cuando un producto cambia de SKU o se elimina.
+ */
+@Component
+public class ProductSkuIndex {
+
+    private final Map<String, Long> idsBySku = new ConcurrentHashMap<>();
+    private final Map<Long, String> skusById = new ConcurrentHashMap<>();
+
+    public Long idOf(String sku) {
+        return idsBySku.get(sku);
+    }
+
+    public synchronized void put(Long productId, String sku) {
+        String previous = sku == null ? skusById.remove(productId) : skusById.put(productId, sku);
+        if (previous != null && !previous.equals(sku)) {
+            idsBySku.remove(previous, productId);
+        }
+        if (sku != null) {
+            idsBySku.put(sku, productId);
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        String sku = skusById.remove(productId);
+        if (sku != null) {
+            idsBySku.remove(sku, productId);
+        }
+    }
+
+    public synchronized void clear() {
+        idsBySku.clear();
+        skusById.clear();
+    }
+
+    public int size() {
+        return idsBySku.size();
+    }
+}
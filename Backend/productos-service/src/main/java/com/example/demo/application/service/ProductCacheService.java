@@ -0,0 +1,78 @@
+package com.example.demo.application.service;
+
+import com.example.demo.application.dto.CacheStatsDTO;
+import com.example.demo.config.CacheConfig;
+import com.example.demo.domain.model.Product;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class ProductCacheService {
+
+    private final ProductService productService;
+    private final CaffeineCache cache;
+    private final boolean warmUpEnabled;
+    private final int warmUpSize;
+    private final int pageSize;
+
+    public ProductCacheService(
+            ProductService productService,
+            CacheManager cacheManager,
+            @Value("${products.cache.warm-up.enabled:false}") boolean warmUpEnabled,
+            @Value("${products.cache.warm-up.size:1000}") int warmUpSize,
+            @Value("${products.cursor.max-limit:500}") int pageSize) {
+        this.productService = productService;
+        this.cache = (CaffeineCache) cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        this.warmUpEnabled = warmUpEnabled;
+        this.warmUpSize = warmUpSize;
+        this.pageSize = pageSize;
+    }
+
+    /** 🔹 Precargar la caché con los primeros productos del catálogo al arrancar */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUpEnabled) return;
+
+        log.info("Warming up product cache with up to {} products", warmUpSize);
+        int loaded = 0;
+        Long afterId = null;
+
+        while (loaded < warmUpSize) {
+            Window<Product> window = productService.findAfter(afterId, Math.min(pageSize, warmUpSize - loaded));
+            for (Product product : window) {
+                cache.put(product.getId(), ProductService.CachedProduct.of(product));
+                afterId = product.getId();
+                loaded++;
+            }
+            if (!window.hasNext()) break;
+        }
+
+        log.info("Product cache warmed up with {} products", loaded);
+    }
+
+    /** 🔹 Estadísticas de aciertos, fallos y desalojos de la caché */
+    public CacheStatsDTO stats() {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = cache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return CacheStatsDTO.builder()
+                .size(nativeCache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    /** 🔹 Vaciar la caché por completo */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.demo.application.service;
+
+import com.example.demo.application.dto.ProductChangeFeedDTO;
+import com.example.demo.application.mapper.ProductChangeMapper;
+import com.example.demo.domain.event.ProductChangedEvent;
+import com.example.demo.domain.model.ProductChange;
+import com.example.demo.domain.model.ProductChangeHorizon;
+import com.example.demo.domain.repository.ProductChangeHorizonRepository;
+import com.example.demo.domain.repository.ProductChangeRepository;
+import com.example.demo.infrastructure.exception.InvalidProductException;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro de cambios de productos con número de secuencia (outbox).
+ * <p>
+ * Cada alta, modificación o baja se guarda en la misma transacción que el producto. El
+ * número se asigna al registrar el cambio, con un bloqueo breve; las transacciones no se
+ * esperan entre sí. Los lectores solo ven hasta {@code committedSeq}, el mayor número por
+ * debajo del cual todas las transacciones han terminado, así que un consumidor que pide
+ * {@code since=N} nunca se salta una entrada confirmada más tarde con un número menor.
+ * Los números de una transacción deshecha quedan como hueco salvo que sean los últimos.
+ * La numeración es de la JVM: vale mientras haya una sola instancia escribiendo.
+ */
+@Slf4j
+@Service
+public class ProductChangeFeedService {
+
+    private record Waiter(long since, int limit, CompletableFuture<ProductChangeFeedDTO> result) {
+    }
+
+    private final ProductChangeRepository repository;
+    private final ProductChangeHorizonRepository horizonRepository;
+    private final EntityManager entityManager;
+    private final int maxLimit;
+    private final Duration maxWait;
+    private final Duration retention;
+    private final Duration tombstoneRetention;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    // Último número asignado y números de transacciones sin terminar (protegidos por appendLock)
+    private long lastSeq;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    // Todo lo que hay hasta aquí está confirmado o deshecho
+    private volatile long committedSeq;
+    // Secuencia de la última marca de borrado eliminada por la compactación (guardada en la base)
+    private volatile long tombstoneHorizon;
+
+    public ProductChangeFeedService(
+            ProductChangeRepository repository,
+            ProductChangeHorizonRepository horizonRepository,
+            EntityManager entityManager,
+            @Value("${products.changes.max-limit:500}") int maxLimit,
+            @Value("${products.changes.max-wait:60s}") Duration maxWait,
+            @Value("${products.changes.retention:1h}") Duration retention,
+            @Value("${products.changes.tombstone-retention:24h}") Duration tombstoneRetention) {
+        this.repository = repository;
+        this.horizonRepository = horizonRepository;
+        this.entityManager = entityManager;
+        this.maxLimit = maxLimit;
+        this.maxWait = maxWait;
+        this.retention = retention;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /** 🔹 Retomar la numeración y el horizonte de compactación a partir de lo guardado */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        appendLock.lock();
+        try {
+            tombstoneHorizon = horizonRepository.findById(ProductChangeHorizon.ID)
+                    .map(ProductChangeHorizon::getTombstoneSeq)
+                    .orElse(0L);
+            // Las últimas entradas pueden ser marcas ya compactadas: sus números no se reutilizan
+            lastSeq = Math.max(repository.findMaxSeq(), tombstoneHorizon);
+            committedSeq = lastSeq;
+            log.info("Product change feed starting at sequence {} (compacted up to {})", lastSeq, tombstoneHorizon);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** 🔹 Registrar un cambio dentro de la transacción que lo produjo */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onProductChanged(ProductChangedEvent event) {
+        List<Long> assigned = transactionSeqs();
+        long seq;
+        appendLock.lock();
+        try {
+            seq = ++lastSeq;
+            inFlight.add(seq);
+        } finally {
+            appendLock.unlock();
+        }
+        assigned.add(seq);
+
+        entityManager.persist(ProductChangeMapper.toEntity(seq, event, Instant.now()));
+    }
+
+    /** 🔹 Leer los cambios posteriores a "since" */
+    public ProductChangeFeedDTO read(long since, int limit) {
+        validate(since, limit);
+
+        if (since < tombstoneHorizon) {
+            log.info("Change feed reader at {} is behind compacted tombstones ({})", since, tombstoneHorizon);
+            return ProductChangeFeedDTO.builder()
+                    .changes(List.of())
+                    .lastSeq(since)
+                    .resetRequired(true)
+                    .build();
+        }
+
+        long head = committedSeq;
+        List<ProductChange> changes = since >= head
+                ? List.of()
+                : repository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeq(since, head, Limit.of(limit));
+        return ProductChangeFeedDTO.builder()
+                .changes(changes.stream().map(ProductChangeMapper::toDTO).toList())
+                .lastSeq(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq())
+                .hasMore(changes.size() == limit)
+                .build();
+    }
+
+    /**
+     * 🔹 Long-poll: responde en cuanto haya cambios posteriores a "since", o con una
+     * página vacía al vencer la espera.
+     */
+    public CompletableFuture<ProductChangeFeedDTO> poll(long since, int limit, Duration requestedWait) {
+        if (requestedWait.isNegative()) {
+            throw new InvalidProductException("El tiempo de espera no puede ser negativo");
+        }
+        Duration wait = requestedWait.compareTo(maxWait) > 0 ? maxWait : requestedWait;
+
+        ProductChangeFeedDTO page = read(since, limit);
+        if (!page.getChanges().isEmpty() || page.isResetRequired() || wait.isZero()) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        Waiter waiter = new Waiter(since, limit, new CompletableFuture<>());
+        waiters.add(waiter);
+        // Un commit entre la lectura y el registro no habría despertado a este lector
+        if (committedSeq > since && waiters.remove(waiter)) {
+            waiter.result().completeAsync(() -> read(since, limit));
+        }
+
+        return waiter.result()
+                .completeOnTimeout(page, wait.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> waiters.remove(waiter));
+    }
+
+    /** 🔹 Secuencia del último cambio confirmado */
+    public long headSeq() {
+        return committedSeq;
+    }
+
+    /**
+     * 🔹 Compactación: se conserva la última entrada de cada producto y se descartan las
+     * marcas de borrado antiguas. Un lector rezagado sigue convergiendo con las entradas
+     * que quedan salvo que se le haya compactado un borrado; entonces recibe resetRequired.
+     */
+    @Scheduled(fixedDelayString = "${products.changes.compaction.interval:PT5M}",
+            initialDelayString = "${products.changes.compaction.interval:PT5M}")
+    @Transactional
+    public void compact() {
+        compact(Instant.now());
+    }
+
+    /** 🔹 Compactar tomando "now" como referencia de las retenciones */
+    @Transactional
+    public void compact(Instant now) {
+        int superseded = repository.deleteSuperseded(now.minus(retention));
+
+        int tombstones = 0;
+        Long expired = repository.findLastExpiredTombstone(now.minus(tombstoneRetention));
+        if (expired != null) {
+            tombstones = repository.deleteTombstonesUpTo(expired);
+            long horizon = Math.max(tombstoneHorizon, expired);
+            horizonRepository.save(new ProductChangeHorizon(ProductChangeHorizon.ID, horizon));
+            tombstoneHorizon = horizon;
+        }
+
+        log.info("Product change feed compacted: {} superseded and {} tombstone entries removed",
+                superseded, tombstones);
+    }
+
+    /**
+     * Números asignados en la transacción en curso. Se liberan al terminarla: confirmada o
+     * deshecha, deja de frenar a los lectores.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Long> transactionSeqs() {
+        List<Long> assigned = (List<Long>) TransactionSynchronizationManager.getResource(this);
+        if (assigned == null) {
+            List<Long> seqs = new ArrayList<>();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(ProductChangeFeedService.this);
+                    release(seqs, status == STATUS_COMMITTED);
+                }
+            });
+            TransactionSynchronizationManager.bindResource(this, seqs);
+            assigned = seqs;
+        }
+        return assigned;
+    }
+
+    private void release(List<Long> seqs, boolean committed) {
+        if (seqs.isEmpty()) return;
+        long previous = committedSeq;
+        long head;
+        appendLock.lock();
+        try {
+            seqs.forEach(inFlight::remove);
+            // Deshecha y con los últimos números: se reutilizan en vez de dejar un hueco
+            long first = seqs.get(0);
+            if (!committed && lastSeq - first + 1 == seqs.size()) {
+                lastSeq = first - 1;
+            }
+            head = inFlight.isEmpty() ? lastSeq : inFlight.first() - 1;
+            committedSeq = head;
+        } finally {
+            appendLock.unlock();
+        }
+        // También al deshacer: puede destapar cambios confirmados detrás de esta transacción
+        if (head > previous) wakeWaiters();
+    }
+
+    private void wakeWaiters() {
+        long head = committedSeq;
+        for (Waiter waiter : waiters) {
+            if (waiter.since() < head && waiters.remove(waiter)) {
+                waiter.result().completeAsync(() -> read(waiter.since(), waiter.limit()));
+            }
+        }
+    }
+
+    private void validate(long since, int limit) {
+        if (since < 0) {
+            throw new InvalidProductException("El parámetro since no puede ser negativo");
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new InvalidProductException("El límite debe estar entre 1 y " + maxLimit);
+        }
+    }
+}
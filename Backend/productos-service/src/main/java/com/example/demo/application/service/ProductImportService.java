@@ -0,0 +1,231 @@
+package com.example.demo.application.service;
+
+import com.example.demo.application.dto.ProductImportResultDTO;
+import com.example.demo.application.dto.ProductImportResultDTO.RowError;
+import com.example.demo.application.dto.ProductRequestDTO;
+import com.example.demo.application.mapper.ProductMapper;
+import com.example.demo.domain.model.Product;
+import com.example.demo.domain.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private final ProductService productService;
+    private final ProductRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(
+            ProductService productService,
+            ProductRepository repository,
+            ObjectMapper objectMapper,
+            @Value("${products.import.batch-size:500}") int batchSize,
+            @Value("${products.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productService = productService;
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /** 🔹 Importar productos desde NDJSON (un objeto JSON por línea) */
+    public ProductImportResultDTO importNdjson(InputStream input) throws IOException {
+        log.info("Starting NDJSON product import (batch size: {})", batchSize);
+        ImportRun run = new ImportRun();
+
+        try (BufferedReader reader = newReader(input)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                try {
+                    run.accept(lineNumber, objectMapper.readValue(line, ProductRequestDTO.class));
+                } catch (JsonProcessingException e) {
+                    run.reject(lineNumber, null, "JSON inválido: " + e.getOriginalMessage());
+                }
+            }
+        }
+
+        return run.finish();
+    }
+
+    /** 🔹 Importar productos desde CSV con cabecera (name, sku, price, description) */
+    public ProductImportResultDTO importCsv(InputStream input) throws IOException {
+        log.info("Starting CSV product import (batch size: {})", batchSize);
+        ImportRun run = new ImportRun();
+
+        try (BufferedReader reader = newReader(input)) {
+            String header = reader.readLine();
+            if (header == null) return run.finish();
+
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> headerFields = parseCsvLine(header);
+            for (int i = 0; i < headerFields.size(); i++) {
+                columns.put(headerFields.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                List<String> fields = parseCsvLine(line);
+                String sku = column(fields, columns, "sku");
+                try {
+                    String price = column(fields, columns, "price");
+                    run.accept(lineNumber, ProductRequestDTO.builder()
+                            .name(column(fields, columns, "name"))
+                            .sku(sku)
+                            .description(column(fields, columns, "description"))
+                            .price(price == null ? null : Double.valueOf(price))
+                            .build());
+                } catch (NumberFormatException e) {
+                    run.reject(lineNumber, sku, "Precio inválido");
+                }
+            }
+        }
+
+        return run.finish();
+    }
+
+    private BufferedReader newReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static String column(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /** Separa una línea CSV respetando campos entre comillas y comillas escapadas ("") */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /** Estado de una importación: acumula filas válidas y las persiste por lotes */
+    private class ImportRun {
+
+        private final List<Long> pendingLines = new ArrayList<>(batchSize);
+        private final List<Product> pending = new ArrayList<>(batchSize);
+        private final Set<String> seenSkus = new HashSet<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void accept(long line, ProductRequestDTO dto) {
+            if (dto.getName() == null || dto.getName().isBlank() || dto.getPrice() == null) {
+                reject(line, dto.getSku(), "El nombre y el precio no pueden ser nulos");
+                return;
+            }
+            if (dto.getSku() != null && !seenSkus.add(dto.getSku())) {
+                reject(line, dto.getSku(), "SKU duplicado en el archivo");
+                return;
+            }
+
+            pendingLines.add(line);
+            pending.add(ProductMapper.toEntity(dto));
+            if (pending.size() >= batchSize) flush();
+        }
+
+        void reject(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(line, sku, message));
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) return;
+
+            Set<String> skus = new HashSet<>();
+            for (Product product : pending) {
+                if (product.getSku() != null) skus.add(product.getSku());
+            }
+            Set<String> existing = skus.isEmpty() ? Set.of() : repository.findExistingSkus(skus);
+
+            List<Product> batch = new ArrayList<>(pending.size());
+            List<Long> batchLines = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                Product product = pending.get(i);
+                if (product.getSku() != null && existing.contains(product.getSku())) {
+                    reject(pendingLines.get(i), product.getSku(), "El SKU ya existe");
+                } else {
+                    batch.add(product);
+                    batchLines.add(pendingLines.get(i));
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    productService.saveAll(batch);
+                    imported += batch.size();
+                } catch (Exception e) {
+                    log.error("Error saving import batch of {} products: {}", batch.size(), e.getMessage());
+                    for (int i = 0; i < batch.size(); i++) {
+                        reject(batchLines.get(i), batch.get(i).getSku(),
+                                "Error al guardar el lote: " + e.getMessage());
+                    }
+                }
+            }
+
+            pending.clear();
+            pendingLines.clear();
+        }
+
+        ProductImportResultDTO finish() {
+            flush();
+            long received = imported + failed;
+            log.info("Product import finished: received={}, imported={}, failed={}", received, imported, failed);
+            return ProductImportResultDTO.builder()
+                    .received(received)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.application.service;
+
+import com.example.demo.application.search.ProductSearchIndex;
+import com.example.demo.domain.event.ProductChangedEvent;
+import com.example.demo.domain.model.Product;
+import com.example.demo.infrastructure.exception.InvalidProductException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class ProductSearchService {
+
+    private final ProductSearchIndex index;
+    private final ProductService productService;
+    private final int maxPageSize;
+
+    public ProductSearchService(
+            ProductSearchIndex index,
+            ProductService productService,
+            @Value("${products.batch.max-size:100}") int maxPageSize) {
+        this.index = index;
+        this.productService = productService;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /** 🔹 Construir el índice de búsqueda con todo el catálogo al arrancar */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        log.info("Building product search index");
+        index.clear();
+        long count = productService.forEachProduct(index::index);
+        log.info("Product search index built with {} products", count);
+    }
+
+    /** 🔹 Mantener el índice al día con cada alta, modificación o baja confirmada */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.ChangeType.DELETED) {
+            index.remove(event.productId());
+        } else {
+            index.index(event.product());
+        }
+    }
+
+    /** 🔹 Buscar productos por nombre, SKU o descripción (coincidencia por término y prefijo) */
+    public Page<Product> search(String query, int page, int size) {
+        log.info("Searching products, q: '{}', page: {}, size: {}", query, page, size);
+
+        if (query == null || query.isBlank()) {
+            throw new InvalidProductException("El parámetro de búsqueda no puede estar vacío");
+        }
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new InvalidProductException("El tamaño de página debe estar entre 1 y " + maxPageSize);
+        }
+
+        ProductSearchIndex.Hits hits = index.search(query, page, size);
+        if (hits.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), PageRequest.of(page, size), hits.total());
+        }
+
+        Map<Long, Product> products = productService.findAllByIds(hits.ids())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ranked = hits.ids().stream()
+                .map(products::get)
+                .filter(product -> product != null)
+                .collect(Collectors.toList());
+
+        log.info("Found {} matching products", hits.total());
+        return new PageImpl<>(ranked, PageRequest.of(page, size), hits.total());
+    }
+}
@@ -1,27 +1,79 @@
 package com.example.demo.application.service;
 
+import com.example.demo.application.dto.ProductFilter;
+import com.example.demo.config.CacheConfig;
+import com.example.demo.domain.event.ProductChangedEvent;
 import com.example.demo.domain.model.Product;
 import com.example.demo.domain.repository.ProductRepository;
+import com.example.demo.domain.repository.ProductSpecifications;
 import com.example.demo.infrastructure.exception.InvalidProductException;
 import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@Timed("product.service")
 public class ProductService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "price", "name");
+    // Campos seleccionables con ?fields=, en el orden de ProductResponseDTO
+    private static final List<String> PROJECTABLE_FIELDS = List.of("id", "name", "sku", "description", "price");
+
     private final ProductRepository repository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher events;
+    private final Cache productsCache;
+    private final Cache bodiesCache;
+    private final int maxBatchSize;
+    private final int maxCursorLimit;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(
+            ProductRepository repository,
+            EntityManager entityManager,
+            ApplicationEventPublisher events,
+            CacheManager cacheManager,
+            @Value("${products.batch.max-size:100}") int maxBatchSize,
+            @Value("${products.cursor.max-limit:500}") int maxCursorLimit) {
         this.repository = repository;
+        this.entityManager = entityManager;
+        this.events = events;
+        this.productsCache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        this.bodiesCache = cacheManager.getCache(CacheConfig.PRODUCT_BODIES_CACHE);
+        this.maxBatchSize = maxBatchSize;
+        this.maxCursorLimit = maxCursorLimit;
     }
 
-    /** 🔹 Crear un nuevo producto */
+    /** 🔹 Crear un nuevo producto (el cambio se registra en la misma transacción) */
+    @Transactional
     public Product save(Product product) {
         log.info("Attempting to create product: {}", product);
 
@@ -31,17 +83,68 @@ public class ProductService {
         }
 
         Product saved = repository.save(product);
+        events.publishEvent(ProductChangedEvent.created(saved));
         log.info("Product created with ID: {}", saved.getId());
         return saved;
     }
 
-    /** 🔹 Obtener un producto por ID */
+    /** 🔹 Crear productos en bloque: los INSERT se agrupan en lotes JDBC */
+    @Transactional
+    public List<Product> saveAll(List<Product> products) {
+        log.info("Creating {} products in batch", products.size());
+
+        List<Product> saved = repository.saveAll(products);
+        entityManager.flush();
+        saved.forEach(product -> events.publishEvent(ProductChangedEvent.created(product)));
+        // Las entradas del registro de cambios se vuelcan antes de vaciar el contexto de
+        // persistencia (que evita que las importaciones grandes acumulen entidades)
+        entityManager.flush();
+        entityManager.clear();
+
+        log.info("{} products created in batch", saved.size());
+        return saved;
+    }
+
+    /**
+     * 🔹 Obtener un producto por ID (lectura a través de la caché). La caché guarda una
+     * copia inmutable ({@link CachedProduct}); cada llamada devuelve un Product nuevo que
+     * se puede modificar sin afectar a la caché ni a la entidad gestionada.
+     */
     public Optional<Product> findById(Long id) {
         log.info("Fetching product by ID: {}", id);
-        return repository.findById(id);
+
+        CachedProduct cached = productsCache.get(id, CachedProduct.class);
+        if (cached == null) {
+            Optional<Product> product = repository.findById(id);
+            if (product.isEmpty()) return Optional.empty();
+            cached = CachedProduct.of(product.get());
+            productsCache.put(id, cached);
+        }
+        return Optional.of(cached.toProduct());
+    }
+
+    /** 🔹 Versión de un producto: de la caché si está, si no con una consulta que solo lee esa columna */
+    public Optional<Long> findVersionById(Long id) {
+        CachedProduct cached = productsCache.get(id, CachedProduct.class);
+        if (cached != null) return Optional.of(cached.version() == null ? 0 : cached.version());
+        return repository.findVersionById(id);
     }
 
-    /** 🔹 Actualizar un producto existente */
+    /** 🔹 Obtener varios productos por ID con una sola consulta IN (...) */
+    public List<Product> findAllByIds(Collection<Long> ids) {
+        log.info("Fetching {} products by ID", ids.size());
+
+        if (ids.isEmpty() || ids.size() > maxBatchSize) {
+            log.warn("Invalid batch size: {} (max {})", ids.size(), maxBatchSize);
+            throw new InvalidProductException(
+                    "La cantidad de IDs debe estar entre 1 y " + maxBatchSize);
+        }
+
+        return repository.findByIdIn(ids);
+    }
+
+    /** 🔹 Actualizar un producto existente (la caché se invalida al confirmar) */
+    @Transactional
     public Product update(Long id, Product productData) {
         log.info("Updating product ID: {} with data: {}", id, productData);
 
@@ -57,12 +160,16 @@ public class ProductService {
         if (productData.getPrice() != null)
             existing.setPrice(productData.getPrice());
 
-        Product updated = repository.save(existing);
+        // Se vuelca antes de publicar para que el evento lleve la versión ya incrementada
+        Product updated = repository.saveAndFlush(existing);
+        events.publishEvent(ProductChangedEvent.updated(updated));
+        evictAfterCommit(id);
         log.info("Product updated successfully: {}", updated);
         return updated;
     }
 
-    /** 🔹 Eliminar un producto por ID */
+    /** 🔹 Eliminar un producto por ID (la caché se invalida al confirmar) */
+    @Transactional
     public void deleteById(Long id) {
         log.info("Deleting product ID: {}", id);
 
@@ -72,14 +179,217 @@ public class ProductService {
         }
 
         repository.deleteById(id);
+        events.publishEvent(ProductChangedEvent.deleted(id));
+        evictAfterCommit(id);
         log.info("Product ID {} deleted successfully", id);
     }
 
+    /**
+     * Invalidar la entidad y el cuerpo cacheados después del commit, no antes: una lectura
+     * concurrente anterior al commit volvería a cachear la fila vieja hasta que caducara.
+     */
+    private void evictAfterCommit(Long id) {
+        Runnable evict = () -> {
+            productsCache.evict(id);
+            bodiesCache.evict(id);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+
+    /** Copia inmutable de un producto para la caché: nunca se guarda la entidad de JPA */
+    public record CachedProduct(Long id, String name, String sku, Double price, String description, Long version) {
+
+        public static CachedProduct of(Product product) {
+            return new CachedProduct(product.getId(), product.getName(), product.getSku(),
+                    product.getPrice(), product.getDescription(), product.getVersion());
+        }
+
+        public Product toProduct() {
+            return new Product(id, name, sku, price, description, version);
+        }
+    }
+
     /** 🔹 Listar productos con paginación */
     public List<Product> findAll(int page, int size) {
         log.info("Listing products, page: {}, size: {}", page, size);
-        List<Product> products = repository.findAll(PageRequest.of(page, size)).getContent();
+        List<Product> products = repository.findAllBy(PageRequest.of(page, size)).getContent();
         log.info("Found {} products", products.size());
         return products;
     }
+
+    /** 🔹 Listar productos por cursor: seek sobre la PK, el coste no depende de la profundidad */
+    public Window<Product> findAfter(Long afterId, int limit) {
+        return scroll(ProductFilter.none(), Sort.Order.asc("id"),
+                afterId == null ? null : Map.of("id", afterId), limit);
+    }
+
+    /** 🔹 Listar productos filtrados y ordenados (id, precio o nombre) con continuación keyset, sin COUNT */
+    public Window<Product> scroll(ProductFilter filter, Sort.Order order, Map<String, Object> after, int limit) {
+        log.info("Listing products with filter: {}, order: {}, after: {}, limit: {}", filter, order, after, limit);
+
+        Sort sort = cursorSort(order, after, limit);
+        // Se pide una fila de más para saber si hay página siguiente sin un COUNT
+        List<Product> rows = repository.findBy(scrollSpec(filter, order, after),
+                query -> query.sortBy(sort).limit(limit + 1).all());
+
+        Window<Product> window = toWindow(rows, limit, product -> keysOf(product, sort));
+        log.info("Found {} products (hasNext: {})", window.size(), window.hasNext());
+        return window;
+    }
+
+    /** 🔹 Igual que scroll, pero seleccionando solo los campos pedidos (más las claves del cursor) */
+    public Window<Map<String, Object>> scrollProjected(ProductFilter filter, Sort.Order order,
+                                                       Map<String, Object> after, int limit, Collection<String> fields) {
+        log.info("Listing product fields {} with filter: {}, order: {}, after: {}, limit: {}",
+                fields, filter, order, after, limit);
+
+        Set<String> requested = projection(fields);
+        Sort sort = cursorSort(order, after, limit);
+        Set<String> selected = new LinkedHashSet<>(requested);
+        sort.forEach(sortOrder -> selected.add(sortOrder.getProperty()));
+
+        List<Map<String, Object>> rows = repository.findProjected(
+                scrollSpec(filter, order, after), sort, selected, 0, limit + 1);
+
+        Window<Map<String, Object>> window = toWindow(rows, limit, row -> keysOf(row, sort));
+        // Las claves de orden no pedidas solo hacían falta para el cursor
+        window.forEach(row -> row.keySet().retainAll(requested));
+        log.info("Found {} products (hasNext: {})", window.size(), window.hasNext());
+        return window;
+    }
+
+    /** 🔹 Listar una página con solo los campos pedidos, ordenada por ID */
+    public List<Map<String, Object>> findAllProjected(int page, int size, Collection<String> fields) {
+        log.info("Listing product fields {}, page: {}, size: {}", fields, page, size);
+        return repository.findProjected(null, Sort.by("id"), projection(fields), (long) page * size, size);
+    }
+
+    /**
+     * 🔹 Obtener un producto con solo los campos pedidos. Incluye siempre "version",
+     * que el controlador usa para el ETag.
+     */
+    public Optional<Map<String, Object>> findProjectedById(Long id, Collection<String> fields) {
+        log.info("Fetching product fields {} by ID: {}", fields, id);
+
+        Set<String> selected = projection(fields);
+        selected.add("version");
+        Specification<Product> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return repository.findProjected(byId, Sort.unsorted(), selected, 0, 1).stream().findFirst();
+    }
+
+    /** Campos pedidos en el orden de ProductResponseDTO; el ID se incluye siempre */
+    private static Set<String> projection(Collection<String> fields) {
+        for (String field : fields) {
+            if (!PROJECTABLE_FIELDS.contains(field)) {
+                throw new InvalidProductException("Campo desconocido: " + field + ". Campos válidos: " + PROJECTABLE_FIELDS);
+            }
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : PROJECTABLE_FIELDS) {
+            if (field.equals("id") || fields.contains(field)) selected.add(field);
+        }
+        return selected;
+    }
+
+    private Sort cursorSort(Sort.Order order, Map<String, Object> after, int limit) {
+        if (limit < 1 || limit > maxCursorLimit) {
+            log.warn("Invalid cursor limit: {} (max {})", limit, maxCursorLimit);
+            throw new InvalidProductException("El límite debe estar entre 1 y " + maxCursorLimit);
+        }
+        if (!SORTABLE_FIELDS.contains(order.getProperty())) {
+            throw new InvalidProductException("Solo se puede ordenar por " + SORTABLE_FIELDS);
+        }
+
+        // El ID desempata y hace única la posición del cursor
+        Sort sort = order.getProperty().equals("id")
+                ? Sort.by(order)
+                : Sort.by(order, Sort.Order.asc("id"));
+
+        if (after != null) {
+            Set<String> expected = new HashSet<>();
+            sort.forEach(sortOrder -> expected.add(sortOrder.getProperty()));
+            if (!expected.equals(after.keySet())) {
+                throw new InvalidProductException("El cursor no corresponde al orden solicitado");
+            }
+        }
+        return sort;
+    }
+
+    private static Specification<Product> scrollSpec(ProductFilter filter, Sort.Order order, Map<String, Object> after) {
+        return Specification
+                .where(ProductSpecifications.priceAtLeast(filter.minPrice()))
+                .and(ProductSpecifications.priceAtMost(filter.maxPrice()))
+                .and(ProductSpecifications.nameStartsWith(filter.nameStartsWith()))
+                .and(ProductSpecifications.after(order, after));
+    }
+
+    /** Las posiciones se calculan al construir la ventana, antes de recortar las filas */
+    private static <T> Window<T> toWindow(List<T> rows, int limit, Function<T, Map<String, Object>> keys) {
+        boolean hasNext = rows.size() > limit;
+        List<T> items = hasNext ? rows.subList(0, limit) : rows;
+        List<ScrollPosition> positions = items.stream()
+                .map(item -> (ScrollPosition) ScrollPosition.forward(keys.apply(item)))
+                .toList();
+        return Window.from(items, positions::get, hasNext);
+    }
+
+    private static Map<String, Object> keysOf(Product product, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        sort.forEach(order -> keys.put(order.getProperty(), switch (order.getProperty()) {
+            case "price" -> product.getPrice();
+            case "name" -> product.getName();
+            default -> product.getId();
+        }));
+        return keys;
+    }
+
+    private static Map<String, Object> keysOf(Map<String, Object> row, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        sort.forEach(order -> keys.put(order.getProperty(), row.get(order.getProperty())));
+        return keys;
+    }
+
+    /** 🔹 Recorrer todo el catálogo con un cursor, sin materializarlo en memoria */
+    @Transactional(readOnly = true)
+    public long forEachProduct(Consumer<Product> consumer) {
+        log.info("Streaming full product catalog");
+        AtomicLong count = new AtomicLong();
+
+        try (Stream<Product> products = repository.streamAll()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                // Se desvincula para que el contexto de persistencia no crezca con el catálogo
+                entityManager.detach(product);
+                count.incrementAndGet();
+            });
+        }
+
+        log.info("Streamed {} products", count.get());
+        return count.get();
+    }
+
+    /** 🔹 Recorrer los pares (ID, SKU) del catálogo sin cargar entidades completas */
+    @Transactional(readOnly = true)
+    public long forEachSku(BiConsumer<Long, String> consumer) {
+        AtomicLong count = new AtomicLong();
+
+        try (Stream<Object[]> rows = repository.streamSkus()) {
+            rows.forEach(row -> {
+                consumer.accept((Long) row[0], (String) row[1]);
+                count.incrementAndGet();
+            });
+        }
+
+        return count.get();
+    }
 }
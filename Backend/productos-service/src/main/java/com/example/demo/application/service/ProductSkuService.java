@@ -0,0 +1,109 @@
+package com.example.demo.application.service;
+
+import com.example.demo.application.search.ProductSkuIndex;
+import com.example.demo.domain.event.ProductChangedEvent;
+import com.example.demo.domain.model.Product;
+import com.example.demo.domain.repository.ProductRepository;
+import com.example.demo.infrastructure.exception.InvalidProductException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+@Slf4j
+@Service
+public class ProductSkuService {
+
+    private final ProductSkuIndex index;
+    private final ProductService productService;
+    private final ProductRepository repository;
+    private final int maxBatchSize;
+
+    public ProductSkuService(
+            ProductSkuIndex index,
+            ProductService productService,
+            ProductRepository repository,
+            @Value("${products.batch.max-size:100}") int maxBatchSize) {
+        this.index = index;
+        this.productService = productService;
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /** 🔹 Cargar el mapa SKU -> ID con todo el catálogo al arrancar */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        log.info("Building SKU index");
+        index.clear();
+        long count = productService.forEachSku(index::put);
+        log.info("SKU index built with {} entries", count);
+    }
+
+    /** 🔹 Mantener el mapa al día con cada alta, cambio de SKU o baja confirmada */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.ChangeType.DELETED) {
+            index.remove(event.productId());
+        } else {
+            index.put(event.productId(), event.product().getSku());
+        }
+    }
+
+    /** 🔹 Obtener un producto por SKU: mapa en memoria + caché por ID, con la consulta indexada como respaldo */
+    public Optional<Product> findBySku(String sku) {
+        log.info("Fetching product by SKU: {}", sku);
+
+        Long id = index.idOf(sku);
+        if (id != null) {
+            Optional<Product> product = productService.findById(id)
+                    .filter(candidate -> sku.equals(candidate.getSku()));
+            if (product.isPresent()) return product;
+        }
+
+        Optional<Product> product = repository.findBySku(sku);
+        product.ifPresent(found -> index.put(found.getId(), found.getSku()));
+        return product;
+    }
+
+    /** 🔹 Resolver varios SKUs: a lo sumo una consulta IN por IDs conocidos y otra por SKUs sin resolver */
+    public List<Product> findAllBySkus(Collection<String> skus) {
+        log.info("Resolving {} SKUs", skus.size());
+
+        if (skus.isEmpty() || skus.size() > maxBatchSize) {
+            log.warn("Invalid SKU batch size: {} (max {})", skus.size(), maxBatchSize);
+            throw new InvalidProductException(
+                    "La cantidad de SKUs debe estar entre 1 y " + maxBatchSize);
+        }
+
+        Map<Long, String> knownIds = new HashMap<>();
+        for (String sku : skus) {
+            Long id = index.idOf(sku);
+            if (id != null) knownIds.put(id, sku);
+        }
+
+        List<Product> found = new ArrayList<>(skus.size());
+        Set<String> resolved = new HashSet<>();
+        if (!knownIds.isEmpty()) {
+            for (Product product : productService.findAllByIds(knownIds.keySet())) {
+                if (product.getSku() != null && product.getSku().equals(knownIds.get(product.getId()))) {
+                    found.add(product);
+                    resolved.add(product.getSku());
+                }
+            }
+        }
+
+        List<String> unresolved = skus.stream().filter(sku -> !resolved.contains(sku)).toList();
+        if (!unresolved.isEmpty()) {
+            for (Product product : repository.findBySkuIn(unresolved)) {
+                index.put(product.getId(), product.getSku());
+                found.add(product);
+            }
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa la caché de lectura de productos. El proveedor (Caffeine) y sus límites
+ * se configuran en application.properties con spring.cache.*.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String PRODUCT_BODIES_CACHE = "productBodies";
+}
@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class EtagConfig {
+
+    /**
+     * ETag calculado sobre el cuerpo de los listados (GET /products): si el cliente ya tiene
+     * la misma página responde 304 sin cuerpo. GET /products/{id} usa ETags por versión.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> productListEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/products");
+        return registration;
+    }
+}
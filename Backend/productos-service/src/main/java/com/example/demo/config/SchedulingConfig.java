@@ -0,0 +1,12 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Activa las tareas periódicas (compactación del registro de cambios).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
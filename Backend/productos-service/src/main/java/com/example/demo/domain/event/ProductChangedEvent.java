@@ -0,0 +1,26 @@
+package com.example.demo.domain.event;
+
+import com.example.demo.domain.model.Product;
+
+/**
+ * Publicado por ProductService tras crear, actualizar o eliminar un producto.
+ * En los borrados {@code product} es null y solo se informa el ID.
+ */
+public record ProductChangedEvent(ChangeType type, Long productId, Product product) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(ChangeType.CREATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(ChangeType.UPDATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(ChangeType.DELETED, productId, null);
+    }
+}
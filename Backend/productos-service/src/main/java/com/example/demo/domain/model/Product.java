@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // 🔹 Índices compuestos con el ID como desempate: sirven filtros, orden y continuación keyset
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_name_id", columnList = "name, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,7 +16,9 @@ import lombok.*;
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 🔹 Esto es lo que activa el autoincremento
+    // 🔹 Secuencia con bloques de 50 IDs: a diferencia de IDENTITY permite agrupar los INSERT en lotes JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,4 +29,8 @@ public class Product {
 
     private Double price;
     private String description;
+
+    // 🔹 Se incrementa en cada actualización; es la base del ETag de las lecturas
+    @Version
+    private Long version;
 }
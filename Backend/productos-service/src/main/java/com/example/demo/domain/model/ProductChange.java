@@ -0,0 +1,44 @@
+package com.example.demo.domain.model;
+
+import com.example.demo.domain.event.ProductChangedEvent.ChangeType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Entrada del registro de cambios (outbox). El número de secuencia lo asigna
+ * ProductChangeFeedService, que solo deja leerlo cuando no queda ninguna transacción
+ * anterior abierta; por eso no usa un generador.
+ */
+@Entity
+@Table(name = "product_changes", indexes = {
+        // 🔹 La compactación busca la entrada más reciente de cada producto
+        @Index(name = "idx_product_changes_product_seq", columnList = "product_id, seq")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChange {
+
+    @Id
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeType type;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // 🔹 Estado del producto tras el cambio (nulo en los borrados)
+    private Long version;
+    private String name;
+    private String sku;
+    private Double price;
+    private String description;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
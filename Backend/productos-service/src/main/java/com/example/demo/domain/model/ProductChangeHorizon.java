@@ -0,0 +1,26 @@
+package com.example.demo.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Secuencia de la última marca de borrado eliminada del registro de cambios. Se guarda en
+ * la misma transacción que la compactación, así que tras reiniciar se sigue sabiendo qué
+ * lectores se han quedado por detrás de lo compactado.
+ */
+@Entity
+@Table(name = "product_change_horizon")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangeHorizon {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "tombstone_seq", nullable = false)
+    private Long tombstoneSeq;
+}
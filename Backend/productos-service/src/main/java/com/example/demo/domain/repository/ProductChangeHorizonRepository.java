@@ -0,0 +1,7 @@
+package com.example.demo.domain.repository;
+
+import com.example.demo.domain.model.ProductChangeHorizon;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductChangeHorizonRepository extends JpaRepository<ProductChangeHorizon, Long> {
+}
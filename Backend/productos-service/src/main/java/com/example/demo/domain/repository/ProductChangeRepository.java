@@ -0,0 +1,43 @@
+package com.example.demo.domain.repository;
+
+import com.example.demo.domain.model.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeq(long since, long upTo, Limit limit);
+
+    @Query("select coalesce(max(c.seq), 0) from ProductChange c")
+    long findMaxSeq();
+
+    // 🔹 Entradas antiguas que ya tienen otra más reciente para el mismo producto
+    @Modifying
+    @Query("""
+            delete from ProductChange c
+            where c.changedAt < :before
+              and exists (select n.seq from ProductChange n where n.productId = c.productId and n.seq > c.seq)""")
+    int deleteSuperseded(@Param("before") Instant before);
+
+    @Query("""
+            select max(c.seq) from ProductChange c
+            where c.type = com.example.demo.domain.event.ProductChangedEvent.ChangeType.DELETED
+              and c.changedAt < :before""")
+    Long findLastExpiredTombstone(@Param("before") Instant before);
+
+    // 🔹 Borra las marcas de borrado hasta :seq junto con lo que quede de esos productos
+    @Modifying
+    @Query("""
+            delete from ProductChange c
+            where c.seq <= :seq
+              and c.productId in (select t.productId from ProductChange t
+                                  where t.type = com.example.demo.domain.event.ProductChangedEvent.ChangeType.DELETED
+                                    and t.seq <= :seq)""")
+    int deleteTombstonesUpTo(@Param("seq") long seq);
+}
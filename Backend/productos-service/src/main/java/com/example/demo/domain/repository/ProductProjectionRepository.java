@@ -0,0 +1,19 @@
+package com.example.demo.domain.repository;
+
+import com.example.demo.domain.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecturas parciales (sparse fieldsets): el SELECT incluye solo las columnas pedidas
+ * y cada fila se devuelve como un mapa campo -> valor, sin hidratar entidades.
+ */
+public interface ProductProjectionRepository {
+
+    List<Map<String, Object>> findProjected(Specification<Product> spec, Sort sort,
+                                            Collection<String> fields, long offset, int limit);
+}
@@ -1,7 +1,51 @@
 package com.example.demo.domain.repository;
 
 import com.example.demo.domain.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductProjectionRepository {
+
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    Optional<Product> findBySku(String sku);
+
+    /** Solo la versión (@Version) del producto, para validar un ETag sin leer la fila completa. */
+    @Query("select coalesce(p.version, 0) from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    @Query("select p.sku from Product p where p.sku in :skus")
+    Set<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    /** Paginación por offset sin la consulta COUNT que añade {@code findAll(Pageable)}. */
+    Slice<Product> findAllBy(Pageable pageable);
+
+    /** Cursor JDBC de solo lectura sobre todo el catálogo; debe consumirse dentro de una transacción. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAll();
+
+    /** Pares (id, sku) de todo el catálogo sin hidratar entidades; debe consumirse dentro de una transacción. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.id, p.sku from Product p where p.sku is not null")
+    Stream<Object[]> streamSkus();
 }
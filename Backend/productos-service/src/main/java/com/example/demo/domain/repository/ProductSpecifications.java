@@ -0,0 +1,67 @@
+package com.example.demo.domain.repository;
+
+import com.example.demo.domain.model.Product;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Map;
+
+/**
+ * Predicados del listado filtrado. Cada uno puede resolverse con los índices
+ * idx_products_price_id / idx_products_name_id (el prefijo de nombre es un LIKE 'x%').
+ */
+public class ProductSpecifications {
+
+    private ProductSpecifications() {
+        // Constructor privado para evitar instanciación
+    }
+
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        return minPrice == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        return maxPrice == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Product> nameStartsWith(String prefix) {
+        if (prefix == null || prefix.isEmpty()) return null;
+
+        String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return (root, query, cb) -> cb.like(root.get("name"), escaped + "%", '\\');
+    }
+
+    /**
+     * Condición de búsqueda (seek) a partir de la última fila vista: (col, id) > (v, lastId).
+     * Se añade además la cota col >= v (o <= v en descendente) para que H2 arranque un
+     * recorrido de rango sobre el índice en vez de evaluar el OR fila a fila.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(Sort.Order order, Map<String, Object> keys) {
+        if (keys == null) return null;
+
+        String property = order.getProperty();
+        Comparable lastId = (Comparable) keys.get("id");
+        if (property.equals("id")) {
+            return (root, query, cb) -> order.isAscending()
+                    ? cb.greaterThan(root.get("id"), lastId)
+                    : cb.lessThan(root.get("id"), lastId);
+        }
+
+        Comparable value = (Comparable) keys.get(property);
+        return (root, query, cb) -> {
+            Path<Comparable> column = root.get(property);
+            Path<Comparable> id = root.get("id");
+            return order.isAscending()
+                    ? cb.and(cb.greaterThanOrEqualTo(column, value),
+                            cb.or(cb.greaterThan(column, value),
+                                    cb.and(cb.equal(column, value), cb.greaterThan(id, lastId))))
+                    : cb.and(cb.lessThanOrEqualTo(column, value),
+                            cb.or(cb.lessThan(column, value),
+                                    cb.and(cb.equal(column, value), cb.greaterThan(id, lastId))));
+        };
+    }
+}
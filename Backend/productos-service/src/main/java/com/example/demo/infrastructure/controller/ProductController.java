@@ -1,17 +1,51 @@
 package com.example.demo.infrastructure.controller;
 
+import com.example.demo.application.dto.ProductBatchResponseDTO;
+import com.example.demo.application.dto.ProductCursorPageDTO;
+import com.example.demo.application.dto.ProductFilter;
 import com.example.demo.application.dto.ProductRequestDTO;
 import com.example.demo.application.dto.ProductResponseDTO;
+import com.example.demo.application.dto.ProductImportResultDTO;
+import com.example.demo.application.dto.ProductSearchResultDTO;
+import com.example.demo.application.dto.ProductSkuBatchResponseDTO;
+import com.example.demo.application.mapper.CursorMapper;
+import com.example.demo.application.service.ProductCacheService;
+import com.example.demo.application.service.ProductChangeFeedService;
+import com.example.demo.application.service.ProductImportService;
+import com.example.demo.application.service.ProductSearchService;
 import com.example.demo.application.service.ProductService;
+import com.example.demo.application.service.ProductSkuService;
 import com.example.demo.domain.model.Product;
+import com.example.demo.infrastructure.exception.InvalidProductException;
 import com.example.demo.infrastructure.exception.ProductNotFoundException;
+import com.example.demo.infrastructure.web.ProductBodyCache;
+import com.example.demo.infrastructure.web.ProductBodyCache.CachedBody;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,7 +54,16 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProductService service;
+    private final ProductImportService importService;
+    private final ProductSearchService searchService;
+    private final ProductSkuService skuService;
+    private final ProductCacheService cacheService;
+    private final ProductChangeFeedService changeFeedService;
+    private final ProductBodyCache bodyCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<?> create(@RequestBody ProductRequestDTO requestDTO) {
@@ -36,13 +79,65 @@ public class ProductController {
         }
     }
 
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        try {
+            log.info("Importing products ({})", contentType);
+            ProductImportResultDTO result = NDJSON.includes(contentType)
+                    ? importService.importNdjson(body)
+                    : importService.importCsv(body);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("Error importing products: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al importar los productos: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable Long id) {
+    public ResponseEntity<?> getById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
         try {
             log.info("Fetching product with ID: {}", id);
-            Product product = service.findById(id)
-                    .orElseThrow(() -> new ProductNotFoundException(id));
-            return ResponseEntity.ok(mapToDTO(product));
+            if (fields != null) {
+                return getProjectedById(id, parseFields(fields), request);
+            }
+            if (prefersCbor(request)) {
+                return getBinaryById(id, request);
+            }
+
+            CachedBody body = bodyCache.get(id);
+            if (body == null && request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                // Petición condicional con la caché fría: la versión basta para el 304, sin leer la fila
+                Long version = service.findVersionById(id)
+                        .orElseThrow(() -> new ProductNotFoundException(id));
+                if (request.checkNotModified(ProductBodyCache.etagOf(id, version))) {
+                    return null;
+                }
+            }
+            if (body == null) {
+                Product product = service.findById(id)
+                        .orElseThrow(() -> new ProductNotFoundException(id));
+                body = bodyCache.put(id,
+                        ProductBodyCache.etagOf(product.getId(), product.getVersion()),
+                        objectMapper.writeValueAsBytes(mapToDTO(product)));
+            }
+            // 304 sin cuerpo si el cliente ya tiene esta versión (If-None-Match)
+            if (request.checkNotModified(body.etag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(body.etag())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body.json());
+        } catch (InvalidProductException e) {
+            log.warn("Invalid product request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (ProductNotFoundException e) {
             log.warn("Product not found with ID: {}", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -54,6 +149,113 @@ public class ProductController {
         }
     }
 
+    /** CBOR para clientes de servicio: la caché de cuerpos solo guarda JSON, se parte de la entidad cacheada */
+    private ResponseEntity<?> getBinaryById(Long id, WebRequest request) {
+        Product product = service.findById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+
+        String etag = ProductBodyCache.etagOf(product.getId(), product.getVersion(), List.of("cbor"));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .body(mapToDTO(product));
+    }
+
+    /** Lectura parcial: no pasa por la caché de cuerpos, el ETag incluye los campos */
+    private ResponseEntity<?> getProjectedById(Long id, Set<String> fields, WebRequest request) {
+        Map<String, Object> product = service.findProjectedById(id, fields)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        Long version = (Long) product.remove("version");
+
+        String etag = ProductBodyCache.etagOf(id, version, product.keySet());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(product);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getByIds(@RequestParam List<Long> ids) {
+        try {
+            Set<Long> requested = new LinkedHashSet<>(ids);
+            log.info("Fetching {} products in batch", requested.size());
+            Map<Long, Product> found = service.findAllByIds(requested)
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+            List<ProductResponseDTO> products = requested.stream()
+                    .filter(found::containsKey)
+                    .map(id -> mapToDTO(found.get(id)))
+                    .collect(Collectors.toList());
+            List<Long> missing = requested.stream()
+                    .filter(id -> !found.containsKey(id))
+                    .collect(Collectors.toList());
+
+            return ResponseEntity.ok(ProductBatchResponseDTO.builder()
+                    .products(products)
+                    .missing(missing)
+                    .build());
+        } catch (InvalidProductException e) {
+            log.warn("Invalid batch request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error retrieving products in batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al obtener los productos: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<?> getBySku(@PathVariable String sku) {
+        try {
+            Product product = skuService.findBySku(sku)
+                    .orElseThrow(() -> new ProductNotFoundException(sku));
+            return ResponseEntity.ok(mapToDTO(product));
+        } catch (ProductNotFoundException e) {
+            log.warn("Product not found with SKU: {}", sku);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Producto no encontrado con SKU: " + sku);
+        } catch (Exception e) {
+            log.error("Error retrieving product with SKU {}: {}", sku, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al obtener el producto: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/sku/resolve")
+    public ResponseEntity<?> resolveSkus(@RequestBody List<String> skus) {
+        try {
+            Set<String> requested = new LinkedHashSet<>(skus);
+            Map<String, Product> found = skuService.findAllBySkus(requested)
+                    .stream()
+                    .collect(Collectors.toMap(Product::getSku, Function.identity()));
+
+            List<ProductResponseDTO> products = requested.stream()
+                    .filter(found::containsKey)
+                    .map(sku -> mapToDTO(found.get(sku)))
+                    .collect(Collectors.toList());
+            List<String> missing = requested.stream()
+                    .filter(sku -> !found.containsKey(sku))
+                    .collect(Collectors.toList());
+
+            return ResponseEntity.ok(ProductSkuBatchResponseDTO.builder()
+                    .products(products)
+                    .missing(missing)
+                    .build());
+        } catch (InvalidProductException e) {
+            log.warn("Invalid SKU batch request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error resolving SKUs: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al resolver los SKUs: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> update(@PathVariable Long id, @RequestBody ProductRequestDTO requestDTO) {
         try {
@@ -91,14 +293,21 @@ public class ProductController {
     @GetMapping
     public ResponseEntity<?> list(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
         try {
-            log.info("Listing products (page: {}, size: {})", page, size);
+            log.info("Listing products (page: {}, size: {}, fields: {})", page, size, fields);
+            if (fields != null) {
+                return ResponseEntity.ok(service.findAllProjected(page, size, parseFields(fields)));
+            }
             List<ProductResponseDTO> response = service.findAll(page, size)
                     .stream()
                     .map(this::mapToDTO)
                     .collect(Collectors.toList());
             return ResponseEntity.ok(response);
+        } catch (InvalidProductException e) {
+            log.warn("Invalid list request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
             log.error("Error listing products: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -106,6 +315,159 @@ public class ProductController {
         }
     }
 
+    // Con ids manda la consulta por lote: limit no aplica ahí
+    @GetMapping(params = {"limit", "!ids"})
+    public ResponseEntity<?> listByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String nameStartsWith,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String fields) {
+        try {
+            log.info("Listing products by cursor (after: {}, limit: {}, sort: {}, fields: {})", after, limit, sort, fields);
+            ProductFilter filter = new ProductFilter(minPrice, maxPrice, nameStartsWith);
+            Window<?> window;
+            List<?> items;
+            if (fields != null) {
+                Window<Map<String, Object>> rows = service.scrollProjected(
+                        filter, parseSort(sort), CursorMapper.decode(after), limit, parseFields(fields));
+                window = rows;
+                items = rows.getContent();
+            } else {
+                Window<Product> products = service.scroll(
+                        filter, parseSort(sort), CursorMapper.decode(after), limit);
+                window = products;
+                items = products.stream()
+                        .map(this::mapToDTO)
+                        .collect(Collectors.toList());
+            }
+            String nextCursor = window.hasNext() && !window.isEmpty()
+                    ? CursorMapper.encode(((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys())
+                    : null;
+            return ResponseEntity.ok(ProductCursorPageDTO.builder()
+                    .items(items)
+                    .nextCursor(nextCursor)
+                    .build());
+        } catch (InvalidProductException e) {
+            log.warn("Invalid cursor request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error listing products by cursor: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al listar los productos: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            Page<Product> results = searchService.search(q, page, size);
+            return ResponseEntity.ok(ProductSearchResultDTO.builder()
+                    .query(q)
+                    .total(results.getTotalElements())
+                    .page(page)
+                    .size(size)
+                    .items(results.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                    .build());
+        } catch (InvalidProductException e) {
+            log.warn("Invalid search request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error searching products: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error al buscar productos: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("Exporting full product catalog as NDJSON");
+        ObjectWriter writer = objectMapper.writerFor(ProductResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // Cada línea termina en '\n'; sin el separador por defecto (espacio) entre valores raíz
+                generator.setRootValueSeparator(null);
+                service.forEachProduct(product -> {
+                    try {
+                        writer.writeValue(generator, mapToDTO(product));
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<?>> changes(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "30") long waitSeconds) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+        try {
+            changeFeedService.poll(since, limit, Duration.ofSeconds(waitSeconds))
+                    .whenComplete((page, error) -> {
+                        if (error == null) {
+                            result.setResult(ResponseEntity.ok(page));
+                        } else {
+                            log.error("Error reading product changes: {}", error.getMessage(), error);
+                            result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                    .body("Error al leer los cambios: " + error.getMessage()));
+                        }
+                    });
+        } catch (InvalidProductException e) {
+            log.warn("Invalid change feed request: {}", e.getMessage());
+            result.setResult(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()));
+        }
+        return result;
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(cacheService.stats());
+    }
+
+    /** CBOR solo si aparece en Accept antes que JSON o un comodín (los navegadores siguen recibiendo JSON) */
+    private static boolean prefersCbor(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) return false;
+
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.getQualityValue() == 0) continue;
+            if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(type)) return true;
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) return false;
+        }
+        return false;
+    }
+
+    /** "name,price" -> {name, price}; el ID se devuelve siempre */
+    private Set<String> parseFields(String fields) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) parsed.add(field.trim());
+        }
+        return parsed;
+    }
+
+    /** "price" o "price,desc" (misma convención que el parámetro sort de Spring Data) */
+    private Sort.Order parseSort(String sort) {
+        String[] parts = sort.split(",");
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        return new Sort.Order(direction, parts[0].trim());
+    }
+
     private Product mapToEntity(ProductRequestDTO dto) {
         Product product = new Product();
         product.setName(dto.getName());
@@ -4,5 +4,9 @@ public class ProductNotFoundException extends RuntimeException {
     public ProductNotFoundException(Long id) {
         super("Product with ID " + id + " not found"); // Cambiado para coincidir con los tests
     }
+
+    public ProductNotFoundException(String sku) {
+        super("Product with SKU " + sku + " not found");
+    }
 }
 
@@ -0,0 +1,46 @@
+package com.example.demo.infrastructure.web;
+
+import com.example.demo.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Cuerpos JSON ya serializados de GET /products/{id} junto a su ETag (las lecturas
+ * en CBOR o con ?fields= no se guardan aquí).
+ * ProductService los invalida al confirmar update/deleteById, igual que la caché de entidades.
+ */
+@Component
+public class ProductBodyCache {
+
+    public record CachedBody(String etag, byte[] json) {
+    }
+
+    private final Cache cache;
+
+    public ProductBodyCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheConfig.PRODUCT_BODIES_CACHE);
+    }
+
+    public CachedBody get(Long id) {
+        return cache.get(id, CachedBody.class);
+    }
+
+    public CachedBody put(Long id, String etag, byte[] json) {
+        CachedBody body = new CachedBody(etag, json);
+        cache.put(id, body);
+        return body;
+    }
+
+    /** ETag fuerte derivado del ID y la versión (@Version) del producto */
+    public static String etagOf(Long id, Long version) {
+        return "\"" + id + "-" + (version == null ? 0 : version) + "\"";
+    }
+
+    /** ETag de otra representación (?fields= o CBOR): cada variante lleva su propia etiqueta */
+    public static String etagOf(Long id, Long version, Collection<String> variant) {
+        return "\"" + id + "-" + (version == null ? 0 : version) + "-" + String.join("+", variant) + "\"";
+    }
+}
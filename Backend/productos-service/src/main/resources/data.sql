@@ -1,15 +1,16 @@
 -- Productos iniciales
 -- Productos iniciales
-INSERT INTO products (id, name, sku, price, description) VALUES (1, 'Producto A', 'A001', 100.0, 'Descripción del producto A');
-INSERT INTO products (id, name, sku, price, description) VALUES (2, 'Producto B', 'B001', 200.0, 'Descripción del producto B');
-INSERT INTO products (id, name, sku, price, description) VALUES (3, 'Producto C', 'C001', 300.0, 'Descripción del producto C');
-INSERT INTO products (id, name, sku, price, description) VALUES (4, 'Producto D', 'D001', 150.0, 'Descripción del producto D');
-INSERT INTO products (id, name, sku, price, description) VALUES (5, 'Producto E', 'E001', 250.0, 'Descripción del producto E');
-INSERT INTO products (id, name, sku, price, description) VALUES (6, 'Producto F', 'F001', 350.0, 'Descripción del producto F');
-INSERT INTO products (id, name, sku, price, description) VALUES (7, 'Producto G', 'G001', 120.0, 'Descripción del producto G');
-INSERT INTO products (id, name, sku, price, description) VALUES (8, 'Producto H', 'H001', 220.0, 'Descripción del producto H');
-INSERT INTO products (id, name, sku, price, description) VALUES (9, 'Producto I', 'I001', 320.0, 'Descripción del producto I');
-INSERT INTO products (id, name, sku, price, description) VALUES (10, 'Producto J', 'J001', 180.0, 'Descripción del producto J');
-INSERT INTO products (id, name, sku, price, description) VALUES (11, 'Producto K', 'K001', 280.0, 'Descripción del producto K');
+INSERT INTO products (id, name, sku, price, description, version) VALUES (1, 'Producto A', 'A001', 100.0, 'Descripción del producto A', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (2, 'Producto B', 'B001', 200.0, 'Descripción del producto B', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (3, 'Producto C', 'C001', 300.0, 'Descripción del producto C', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (4, 'Producto D', 'D001', 150.0, 'Descripción del producto D', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (5, 'Producto E', 'E001', 250.0, 'Descripción del producto E', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (6, 'Producto F', 'F001', 350.0, 'Descripción del producto F', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (7, 'Producto G', 'G001', 120.0, 'Descripción del producto G', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (8, 'Producto H', 'H001', 220.0, 'Descripción del producto H', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (9, 'Producto I', 'I001', 320.0, 'Descripción del producto I', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (10, 'Producto J', 'J001', 180.0, 'Descripción del producto J', 0);
+INSERT INTO products (id, name, sku, price, description, version) VALUES (11, 'Producto K', 'K001', 280.0, 'Descripción del producto K', 0);
 
-ALTER TABLE products ALTER COLUMN id RESTART WITH 12;
+-- La secuencia entrega bloques de 50 IDs; se reinicia por encima de los IDs sembrados
+ALTER SEQUENCE products_seq RESTART WITH 100;
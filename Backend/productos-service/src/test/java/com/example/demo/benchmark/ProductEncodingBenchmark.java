@@ -0,0 +1,101 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.application.dto.ProductResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tamaño y coste de (de)serialización de una página de 10.000 productos en JSON y CBOR,
+ * con y sin gzip (lo que viaja entre productos-service e inventario-service).
+ *
+ * mvn test -Pbenchmark -Dtest=ProductEncodingBenchmark
+ */
+@Tag("benchmark")
+class ProductEncodingBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int WARM_UP = 20;
+    private static final int RUNS = 30;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void compareJsonAndCbor() throws IOException {
+        List<ProductResponseDTO> page = products();
+
+        byte[] jsonBytes = json.writeValueAsBytes(page);
+        byte[] cborBytes = cbor.writeValueAsBytes(page);
+
+        double jsonWrite = time(() -> write(json, page));
+        double cborWrite = time(() -> write(cbor, page));
+        double jsonRead = time(() -> read(json, jsonBytes));
+        double cborRead = time(() -> read(cbor, cborBytes));
+
+        System.out.printf("%-6s %12s %12s %10s %10s%n", "format", "bytes", "gzip bytes", "write ms", "read ms");
+        System.out.printf("%-6s %,12d %,12d %10.2f %10.2f%n", "JSON", jsonBytes.length, gzip(jsonBytes).length, jsonWrite, jsonRead);
+        System.out.printf("%-6s %,12d %,12d %10.2f %10.2f%n", "CBOR", cborBytes.length, gzip(cborBytes).length, cborWrite, cborRead);
+
+        assertEquals(PRODUCTS, read(cbor, cborBytes).length);
+        assertTrue(cborBytes.length < jsonBytes.length);
+    }
+
+    private List<ProductResponseDTO> products() {
+        Random random = new Random(7);
+        List<ProductResponseDTO> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(ProductResponseDTO.builder()
+                    .id(1_000L + i)
+                    .name("Producto " + Integer.toString(random.nextInt(1_000_000), 36))
+                    .sku("SKU-" + i)
+                    .price(Math.round(random.nextDouble() * 100_000) / 100.0)
+                    .description("Descripción del producto " + i + " con detalles de uso, garantía y materiales")
+                    .build());
+        }
+        return products;
+    }
+
+    private static byte[] write(ObjectMapper mapper, List<ProductResponseDTO> page) {
+        try {
+            return mapper.writeValueAsBytes(page);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ProductResponseDTO[] read(ObjectMapper mapper, byte[] bytes) {
+        try {
+            return mapper.readValue(bytes, ProductResponseDTO[].class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /** Media en ms tras calentar la ruta */
+    private static double time(Runnable action) {
+        for (int i = 0; i < WARM_UP; i++) action.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) action.run();
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.application.dto.ProductFilter;
+import com.example.demo.application.service.ProductService;
+import com.example.demo.domain.model.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Listado filtrado/ordenado sobre un catálogo sembrado (por defecto 1.000.000 filas).
+ * Comprueba con EXPLAIN que H2 usa los índices de precio y nombre, y compara el coste de
+ * una página profunda con keyset frente a OFFSET.
+ *
+ * mvn test -Pbenchmark -Dtest=ProductListingBenchmark [-Dbenchmark.rows=1000000]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.com.example.demo=WARN"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductListingBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final long FIRST_ID = 10_000_000L;
+    private static final int PAGE = 50;
+    private static final int WARM_UP = 200;
+    private static final int RUNS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductService service;
+
+    @BeforeAll
+    void seed() {
+        long start = System.nanoTime();
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{FIRST_ID + i, "Bench " + Integer.toString(random.nextInt(1_000_000), 36),
+                    "BENCH-" + i, Math.round(random.nextDouble() * 100_000) / 100.0, "Producto de prueba " + i});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        jdbc.execute("ANALYZE");
+        System.out.printf("Seeded %,d products in %d ms%n", ROWS, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void filteredQueriesUseIndexes() {
+        String byPrice = plan("SELECT id FROM products WHERE price >= 500 AND price <= 600 ORDER BY price, id FETCH FIRST 50 ROWS ONLY");
+        String byName = plan("SELECT id FROM products WHERE name LIKE 'Bench a%' ORDER BY name, id FETCH FIRST 50 ROWS ONLY");
+        String seek = plan("SELECT * FROM products WHERE price >= 500 AND (price > 500 OR (price = 500 AND id > 10000123)) ORDER BY price, id FETCH FIRST 50 ROWS ONLY");
+        System.out.println("EXPLAIN price range:\n" + byPrice);
+        System.out.println("EXPLAIN name prefix:\n" + byName);
+        System.out.println("EXPLAIN price keyset:\n" + seek);
+
+        assertTrue(byPrice.contains("IDX_PRODUCTS_PRICE_ID"), byPrice);
+        assertTrue(byName.contains("IDX_PRODUCTS_NAME_ID"), byName);
+        assertTrue(seek.contains("IDX_PRODUCTS_PRICE_ID: PRICE >="), seek);
+    }
+
+    @Test
+    void deepKeysetPageCostsTheSameAsTheFirst() {
+        Sort.Order byPrice = Sort.Order.asc("price");
+        ProductFilter filter = new ProductFilter(100.0, null, null);
+
+        // Posición de una página profunda (fila ~90% del rango filtrado)
+        Map<String, Object> deep = jdbc.queryForObject(
+                "SELECT price, id FROM products WHERE price >= 100 ORDER BY price, id OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY",
+                (rs, n) -> Map.<String, Object>of("price", rs.getDouble(1), "id", rs.getLong(2)),
+                (int) (ROWS * 0.9 * 0.99));
+
+        double first = time(() -> service.scroll(filter, byPrice, null, PAGE));
+        double keyset = time(() -> service.scroll(filter, byPrice, deep, PAGE));
+        double offset = time(() -> entityManager.createQuery(
+                        "select p from Product p where p.price >= 100 order by p.price, p.id", Product.class)
+                .setFirstResult((int) (ROWS * 0.9 * 0.99))
+                .setMaxResults(PAGE)
+                .getResultList());
+
+        Window<Product> page = service.scroll(filter, byPrice, deep, PAGE);
+        assertEquals(PAGE, page.size());
+        assertNotNull(((KeysetScrollPosition) page.positionAt(page.size() - 1)).getKeys());
+
+        System.out.printf("Rows=%,d  first page (keyset)=%.2f ms  deep page (keyset)=%.2f ms  deep page (OFFSET)=%.2f ms%n",
+                ROWS, first, keyset, offset);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO products (id, name, sku, price, description, version) VALUES (?, ?, ?, ?, ?, 0)", batch);
+        batch.clear();
+    }
+
+    private String plan(String sql) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    /** Media en ms tras calentar la ruta */
+    private double time(Runnable action) {
+        for (int i = 0; i < WARM_UP; i++) action.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) action.run();
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.demo.controller;
+
+import com.example.demo.application.dto.ProductResponseDTO;
+import com.example.demo.application.service.ProductChangeFeedService;
+import com.example.demo.application.service.ProductService;
+import com.example.demo.config.CacheConfig;
+import com.example.demo.domain.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductChangeFeedService changeFeed;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void testGetByIdHonorsIfNoneMatchUntilVersionChanges() throws Exception {
+        Product product = new Product();
+        product.setName("Webcam");
+        product.setPrice(80.0);
+        product = service.save(product);
+        String url = "/products/" + product.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Webcam"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Webcam HD\"}"))
+                .andExpect(status().isOk());
+
+        String newEtag = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Webcam HD"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void testConditionalGetWithColdCacheSkipsTheEntityLoad() throws Exception {
+        Product product = new Product();
+        product.setName("Dock");
+        product.setPrice(120.0);
+        product = service.save(product);
+        String url = "/products/" + product.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).clear();
+        cacheManager.getCache(CacheConfig.PRODUCT_BODIES_CACHE).clear();
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        // Respondido con la versión: ni la entidad ni el cuerpo se han cargado
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(product.getId()));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_BODIES_CACHE).get(product.getId()));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"otra\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.name").value("Dock"));
+        mockMvc.perform(get("/products/999999").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testFieldsParameterTrimsTheResponse() throws Exception {
+        Product product = new Product();
+        product.setName("Headset");
+        product.setPrice(45.0);
+        product.setDescription("Texto que no debe viajar");
+        product = service.save(product);
+        String url = "/products/" + product.getId();
+
+        String etag = mockMvc.perform(get(url).param("fields", "name,price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(product.getId()))
+                .andExpect(jsonPath("$.name").value("Headset"))
+                .andExpect(jsonPath("$.description").doesNotExist())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(url).param("fields", "name,price").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(url).param("fields", "name").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products").param("limit", "5").param("fields", "price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].price").exists())
+                .andExpect(jsonPath("$.items[0].name").doesNotExist());
+
+        mockMvc.perform(get("/products").param("fields", "password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetByIdNegotiatesCbor() throws Exception {
+        Product product = new Product();
+        product.setName("Dock");
+        product.setPrice(150.0);
+        product = service.save(product);
+        String url = "/products/" + product.getId();
+
+        String jsonEtag = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        byte[] body = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(header().string(HttpHeaders.ETAG, not(jsonEtag)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ProductResponseDTO decoded = new ObjectMapper(new CBORFactory()).readValue(body, ProductResponseDTO.class);
+        assertEquals("Dock", decoded.getName());
+    }
+
+    @Test
+    void testImportedProductsReachTheChangeFeed() throws Exception {
+        long since = changeFeed.headSeq();
+
+        mockMvc.perform(post("/products/import")
+                        .contentType("application/x-ndjson")
+                        .content("""
+                                {"name":"Imported A","sku":"FEED-1","price":10.0}
+                                {"name":"Imported B","sku":"FEED-2","price":20.0}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        MvcResult changes = mockMvc.perform(get("/products/changes")
+                        .param("since", String.valueOf(since))
+                        .param("waitSeconds", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(changes))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.changes[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.changes[0].product.name").value("Imported A"))
+                .andExpect(jsonPath("$.changes[1].product.name").value("Imported B"))
+                .andExpect(jsonPath("$.lastSeq").value(changeFeed.headSeq()));
+    }
+
+    @Test
+    void testIdsWithLimitIsServedAsBatch() throws Exception {
+        Product product = new Product();
+        product.setName("Hub");
+        product.setPrice(25.0);
+        product = service.save(product);
+
+        mockMvc.perform(get("/products").param("ids", product.getId().toString()).param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].name").value("Hub"))
+                .andExpect(jsonPath("$.missing").isEmpty());
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() throws Exception {
+        for (String keys : new String[] {"{\"id\":\"x\"}", "{\"price\":[1],\"id\":1}",
+                "{\"price\":null,\"id\":3}", "{\"id\":null}", "123", "{"}) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+            mockMvc.perform(get("/products").param("limit", "5").param("sort", "price").param("after", cursor))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Cursor inválido: " + cursor));
+        }
+        mockMvc.perform(get("/products").param("limit", "5").param("after", "no base64!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testPrometheusEndpointExposesEndpointServiceAndRepositoryTimers() throws Exception {
+        Product product = new Product();
+        product.setName("Metered");
+        product.setPrice(10.0);
+        product = service.save(product);
+        mockMvc.perform(get("/products/" + product.getId())).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "endpoint histograms");
+        assertTrue(scrape.contains("uri=\"/products/{id}\""), "endpoint URI template");
+        assertTrue(scrape.contains("product_service_seconds_bucket{"), "service histograms");
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"), "repository histograms");
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.search;
+
+import com.example.demo.application.search.ProductSearchIndex;
+import com.example.demo.domain.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductSearchIndex();
+        index.index(product(1L, "Teclado mecánico", "KB-100", "Switches rojos"));
+        index.index(product(2L, "Ratón inalámbrico", "MS-200", "Compatible con teclado"));
+        index.index(product(3L, "Monitor 27", "MN-300", "Panel IPS"));
+    }
+
+    @Test
+    void testPrefixAndAccentInsensitiveMatchRanksNameAboveDescription() {
+        ProductSearchIndex.Hits hits = index.search("tecl", 0, 10);
+
+        assertEquals(2, hits.total());
+        assertEquals(List.of(1L, 2L), hits.ids());
+        assertEquals(List.of(1L), index.search("MECANICO", 0, 10).ids());
+    }
+
+    @Test
+    void testAllQueryTermsMustMatchAndSkuIsSearchable() {
+        assertEquals(List.of(2L), index.search("raton teclado", 0, 10).ids());
+        assertEquals(List.of(3L), index.search("mn-300", 0, 10).ids());
+        assertEquals(0, index.search("raton monitor", 0, 10).total());
+    }
+
+    @Test
+    void testUpdateAndRemoveAreReflected() {
+        index.index(product(3L, "Monitor curvo", "MN-300", "Panel VA"));
+        assertEquals(0, index.search("ips", 0, 10).total());
+        assertEquals(List.of(3L), index.search("curvo", 0, 10).ids());
+
+        index.remove(3L);
+        assertEquals(0, index.search("monitor", 0, 10).total());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testPagination() {
+        ProductSearchIndex.Hits page = index.search("teclado", 1, 1);
+
+        assertEquals(2, page.total());
+        assertEquals(List.of(2L), page.ids());
+    }
+
+    private Product product(Long id, String name, String sku, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setSku(sku);
+        product.setDescription(description);
+        product.setPrice(1.0);
+        return product;
+    }
+}
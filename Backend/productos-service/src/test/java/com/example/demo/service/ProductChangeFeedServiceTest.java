@@ -0,0 +1,200 @@
+package com.example.demo.service;
+
+import com.example.demo.application.dto.ProductChangeDTO;
+import com.example.demo.application.dto.ProductChangeFeedDTO;
+import com.example.demo.application.service.ProductChangeFeedService;
+import com.example.demo.application.service.ProductService;
+import com.example.demo.domain.model.Product;
+import com.example.demo.domain.repository.ProductChangeHorizonRepository;
+import com.example.demo.domain.repository.ProductChangeRepository;
+import com.example.demo.infrastructure.exception.InvalidProductException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductChangeFeedServiceTest {
+
+    @Autowired
+    private ProductChangeFeedService feed;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactions;
+
+    @Autowired
+    private ProductChangeRepository changeRepository;
+
+    @Autowired
+    private ProductChangeHorizonRepository horizonRepository;
+
+    @Test
+    void testChangesAreRecordedInOrderWithProductState() {
+        long since = feed.headSeq();
+
+        Product product = service.save(newProduct("Router", 120.0));
+        Product changed = new Product();
+        changed.setPrice(110.0);
+        service.update(product.getId(), changed);
+        service.deleteById(product.getId());
+
+        ProductChangeFeedDTO page = feed.read(since, 10);
+        List<ProductChangeDTO> changes = page.getChanges();
+
+        assertEquals(3, changes.size());
+        assertEquals(List.of("CREATED", "UPDATED", "DELETED"),
+                changes.stream().map(ProductChangeDTO::getType).toList());
+        assertTrue(changes.get(0).getSeq() < changes.get(1).getSeq());
+        assertTrue(changes.get(1).getSeq() < changes.get(2).getSeq());
+        assertEquals(110.0, changes.get(1).getProduct().getPrice());
+        assertEquals(1L, changes.get(1).getVersion());
+        assertNull(changes.get(2).getProduct());
+        assertEquals(changes.get(2).getSeq(), page.getLastSeq());
+        assertEquals(page.getLastSeq(), feed.headSeq());
+    }
+
+    @Test
+    void testFailedWriteLeavesNoEntry() {
+        long since = feed.headSeq();
+
+        assertThrows(Exception.class, () -> service.update(999_999L, newProduct("Ghost", 1.0)));
+
+        assertTrue(feed.read(since, 10).getChanges().isEmpty());
+        assertEquals(since, feed.headSeq());
+    }
+
+    @Test
+    void testOpenTransactionHidesLaterChangesWithoutBlockingWriters() throws Exception {
+        long since = feed.headSeq();
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        // Toma el número siguiente y no termina hasta que se le indique; al final se deshace
+        CompletableFuture<Void> open = CompletableFuture.runAsync(() -> transactions.executeWithoutResult(status -> {
+            service.save(newProduct("Pending", 10.0));
+            recorded.countDown();
+            awaitQuietly(finish);
+            status.setRollbackOnly();
+        }));
+        assertTrue(recorded.await(5, TimeUnit.SECONDS));
+
+        // Otro escritor no espera a la transacción abierta...
+        Product committed = CompletableFuture.supplyAsync(() -> service.save(newProduct("Committed", 20.0)))
+                .get(5, TimeUnit.SECONDS);
+        // ...pero su cambio no se ve mientras haya un número menor sin terminar
+        assertTrue(feed.read(since, 10).getChanges().isEmpty());
+        assertEquals(since, feed.headSeq());
+
+        CompletableFuture<ProductChangeFeedDTO> pending = feed.poll(since, 10, Duration.ofSeconds(10));
+        finish.countDown();
+        open.get(5, TimeUnit.SECONDS);
+
+        List<ProductChangeDTO> changes = pending.get(5, TimeUnit.SECONDS).getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(committed.getId(), changes.get(0).getProductId());
+        assertEquals(changes.get(0).getSeq(), feed.headSeq());
+    }
+
+    @Test
+    void testPollWaitsForNextCommit() throws Exception {
+        long since = feed.headSeq();
+
+        CompletableFuture<ProductChangeFeedDTO> pending = feed.poll(since, 10, Duration.ofSeconds(10));
+        assertFalse(pending.isDone());
+
+        Product product = service.save(newProduct("Switch", 60.0));
+
+        ProductChangeFeedDTO page = pending.get(5, TimeUnit.SECONDS);
+        assertEquals(1, page.getChanges().size());
+        assertEquals(product.getId(), page.getChanges().get(0).getProductId());
+    }
+
+    @Test
+    void testPollReturnsEmptyPageOnTimeout() throws Exception {
+        long since = feed.headSeq();
+
+        ProductChangeFeedDTO page = feed.poll(since, 10, Duration.ofMillis(50)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(since, page.getLastSeq());
+    }
+
+    @Test
+    void testCompactionKeepsLatestEntryAndExpiresTombstones() {
+        long since = feed.headSeq();
+
+        Product kept = service.save(newProduct("Modem", 45.0));
+        Product changed = new Product();
+        changed.setPrice(40.0);
+        service.update(kept.getId(), changed);
+        Product removed = service.save(newProduct("Hub", 15.0));
+        service.deleteById(removed.getId());
+
+        // Solo se compactan las entradas reemplazadas; las marcas de borrado aún no han vencido
+        feed.compact(Instant.now().plus(Duration.ofHours(2)));
+
+        List<ProductChangeDTO> changes = feed.read(since, 10).getChanges();
+        assertEquals(2, changes.size());
+        assertEquals("UPDATED", changes.get(0).getType());
+        assertEquals(40.0, changes.get(0).getProduct().getPrice());
+        assertEquals("DELETED", changes.get(1).getType());
+
+        feed.compact(Instant.now().plus(Duration.ofDays(2)));
+
+        assertTrue(feed.read(since, 10).isResetRequired());
+        assertFalse(feed.read(feed.headSeq(), 10).isResetRequired());
+    }
+
+    @Test
+    void testCompactionHorizonSurvivesRestart() {
+        long since = feed.headSeq();
+        Product removed = service.save(newProduct("Repeater", 25.0));
+        service.deleteById(removed.getId());
+        feed.compact(Instant.now().plus(Duration.ofDays(2)));
+
+        // Otra instancia sobre la misma base, como tras reiniciar el servicio
+        ProductChangeFeedService restarted = new ProductChangeFeedService(changeRepository, horizonRepository,
+                entityManager, 500, Duration.ofSeconds(1), Duration.ofHours(1), Duration.ofHours(24));
+        restarted.init();
+
+        assertTrue(restarted.read(since, 10).isResetRequired());
+        assertFalse(restarted.read(restarted.headSeq(), 10).isResetRequired());
+    }
+
+    @Test
+    void testReadRejectsInvalidLimit() {
+        assertThrows(InvalidProductException.class, () -> feed.read(0, 0));
+        assertThrows(InvalidProductException.class, () -> feed.read(-1, 10));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Product newProduct(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import com.example.demo.application.dto.ProductImportResultDTO;
+import com.example.demo.application.service.ProductImportService;
+import com.example.demo.domain.model.Product;
+import com.example.demo.domain.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void testImportNdjsonReportsRowErrors() throws Exception {
+        Product existing = new Product();
+        existing.setName("Existing");
+        existing.setPrice(1.0);
+        existing.setSku("SKU-EXISTING");
+        repository.save(existing);
+
+        String ndjson = """
+                {"name":"Monitor","sku":"SKU-1","price":300.0}
+                {"name":"Monitor bis","sku":"SKU-1","price":310.0}
+                {"name":"Clash","sku":"SKU-EXISTING","price":5.0}
+                {"sku":"SKU-2","price":10.0}
+                not-json
+                {"name":"Cable","sku":"SKU-3","price":4.5,"description":"USB-C"}
+                """;
+
+        ProductImportResultDTO result = importService.importNdjson(stream(ndjson));
+
+        assertEquals(6, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getFailed());
+        assertEquals(4, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals(3, repository.count());
+    }
+
+    @Test
+    void testImportCsvWithQuotedFields() throws Exception {
+        String csv = """
+                name,sku,price,description
+                "Silla, ergonómica",CSV-1,120.0,"Respaldo ""mesh""\"
+                Mesa,CSV-2,abc,
+                Lámpara,CSV-3,35,
+                """;
+
+        ProductImportResultDTO result = importService.importCsv(stream(csv));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals("Precio inválido", result.getErrors().get(0).getMessage());
+        Product chair = repository.findAll().stream()
+                .filter(p -> "CSV-1".equals(p.getSku()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Silla, ergonómica", chair.getName());
+        assertEquals("Respaldo \"mesh\"", chair.getDescription());
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.demo.service;
 
+import com.example.demo.application.dto.CacheStatsDTO;
+import com.example.demo.application.dto.ProductFilter;
+import com.example.demo.application.service.ProductCacheService;
 import com.example.demo.application.service.ProductService;
 import com.example.demo.domain.model.Product;
 import com.example.demo.domain.repository.ProductRepository;
@@ -9,6 +12,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,9 +36,16 @@ class ProductServiceTest {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private ProductCacheService cacheService;
+
+    @Autowired
+    private TransactionTemplate transactions;
+
     @BeforeEach
     void setup() {
         repository.deleteAll();
+        cacheService.clear();
     }
 
     @Test
@@ -97,5 +119,180 @@ class ProductServiceTest {
         assertEquals("Product with ID 999 not found", ex.getMessage());
     }
 
+    @Test
+    void testFindAllByIdsReturnsOnlyExisting() {
+        Product product = new Product();
+        product.setName("Keyboard");
+        product.setPrice(45.0);
+        product = service.save(product);
+
+        List<Product> found = service.findAllByIds(List.of(product.getId(), 777L));
+
+        assertEquals(1, found.size());
+        assertEquals("Keyboard", found.get(0).getName());
+    }
+
+    @Test
+    void testFindAllByIdsRejectsOversizedBatch() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().collect(Collectors.toList());
+
+        assertThrows(InvalidProductException.class, () -> service.findAllByIds(ids));
+    }
+
+    @Test
+    void testFindAfterWalksCatalogByCursor() {
+        for (String name : List.of("P1", "P2", "P3")) {
+            Product product = new Product();
+            product.setName(name);
+            product.setPrice(10.0);
+            service.save(product);
+        }
+
+        Window<Product> first = service.findAfter(null, 2);
+        assertEquals(List.of("P1", "P2"), first.stream().map(Product::getName).collect(Collectors.toList()));
+        assertTrue(first.hasNext());
+
+        Window<Product> second = service.findAfter(first.getContent().get(1).getId(), 2);
+        assertEquals(List.of("P3"), second.stream().map(Product::getName).collect(Collectors.toList()));
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testForEachProductStreamsWholeCatalog() {
+        for (String name : List.of("S1", "S2", "S3")) {
+            Product product = new Product();
+            product.setName(name);
+            product.setPrice(5.0);
+            service.save(product);
+        }
 
+        List<String> names = new ArrayList<>();
+        long count = service.forEachProduct(product -> names.add(product.getName()));
+
+        assertEquals(3, count);
+        assertEquals(List.of("S1", "S2", "S3"), names);
+    }
+
+    @Test
+    void testFindByIdIsServedFromCacheAndInvalidatedOnUpdate() {
+        Product product = new Product();
+        product.setName("Headset");
+        product.setPrice(60.0);
+        product = service.save(product);
+
+        CacheStatsDTO before = cacheService.stats();
+        service.findById(product.getId());
+        service.findById(product.getId());
+        CacheStatsDTO after = cacheService.stats();
+
+        assertEquals(before.getMissCount() + 1, after.getMissCount());
+        assertEquals(before.getHitCount() + 1, after.getHitCount());
+
+        Product updated = new Product();
+        updated.setName("Headset Pro");
+        service.update(product.getId(), updated);
+
+        assertEquals("Headset Pro", service.findById(product.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void testReadDuringUpdateDoesNotLeaveStaleEntryInCache() throws Exception {
+        Product product = new Product();
+        product.setName("Dock");
+        product.setPrice(90.0);
+        Long id = service.save(product).getId();
+
+        transactions.executeWithoutResult(status -> {
+            Product changed = new Product();
+            changed.setName("Dock Pro");
+            service.update(id, changed);
+            // Otra lectura antes del commit ve y cachea la fila todavía confirmada
+            String seen = CompletableFuture.supplyAsync(() -> service.findById(id).orElseThrow().getName()).join();
+            assertEquals("Dock", seen);
+        });
+
+        assertEquals("Dock Pro", service.findById(id).orElseThrow().getName());
+    }
+
+    @Test
+    void testCachedProductCannotBeModifiedByCallers() {
+        Product product = new Product();
+        product.setName("Cable");
+        product.setPrice(5.0);
+        Long id = service.save(product).getId();
+
+        service.findById(id).orElseThrow().setName("Changed");
+
+        assertEquals("Cable", service.findById(id).orElseThrow().getName());
+        assertEquals("Cable", repository.findById(id).orElseThrow().getName());
+    }
+
+    @Test
+    void testScrollFiltersAndSortsByPriceWithKeysetContinuation() {
+        double[] prices = {50.0, 10.0, 30.0, 30.0, 90.0};
+        for (int i = 0; i < prices.length; i++) {
+            Product product = new Product();
+            product.setName("Item " + i);
+            product.setPrice(prices[i]);
+            service.save(product);
+        }
+        ProductFilter filter = new ProductFilter(20.0, 60.0, "Item");
+
+        Window<Product> first = service.scroll(filter, Sort.Order.desc("price"), null, 2);
+        assertEquals(List.of(50.0, 30.0), first.stream().map(Product::getPrice).collect(Collectors.toList()));
+        assertTrue(first.hasNext());
+
+        KeysetScrollPosition last = (KeysetScrollPosition) first.positionAt(first.size() - 1);
+        Window<Product> second = service.scroll(filter, Sort.Order.desc("price"), last.getKeys(), 2);
+        assertEquals(List.of(30.0), second.stream().map(Product::getPrice).collect(Collectors.toList()));
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testScrollRejectsUnknownSortField() {
+        assertThrows(InvalidProductException.class,
+                () -> service.scroll(ProductFilter.none(), Sort.Order.asc("description"), null, 10));
+    }
+
+    @Test
+    void testProjectedReadsReturnOnlyRequestedFields() {
+        Product product = new Product();
+        product.setName("Projected");
+        product.setPrice(12.0);
+        product.setSku("SKU-PROJ-1");
+        product.setDescription("Descripción larga que no se pidió");
+        Long id = service.save(product).getId();
+
+        Map<String, Object> row = service.findProjectedById(id, Set.of("price", "name")).orElseThrow();
+        assertEquals(List.of("id", "name", "price", "version"), new ArrayList<>(row.keySet()));
+        assertEquals("Projected", row.get("name"));
+
+        List<Map<String, Object>> page = service.findAllProjected(0, 5, Set.of("sku"));
+        assertFalse(page.isEmpty());
+        page.forEach(item -> assertEquals(Set.of("id", "sku"), item.keySet()));
+
+        assertThrows(InvalidProductException.class,
+                () -> service.findProjectedById(id, Set.of("version")));
+    }
+
+    @Test
+    void testProjectedScrollKeepsCursorKeysOutOfTheItems() {
+        for (double price : new double[]{5.0, 7.0, 9.0}) {
+            Product product = new Product();
+            product.setName("Slim " + price);
+            product.setPrice(price);
+            service.save(product);
+        }
+        ProductFilter filter = new ProductFilter(null, null, "Slim ");
+
+        Window<Map<String, Object>> first = service.scrollProjected(filter, Sort.Order.asc("price"), null, 2, Set.of("name"));
+        assertEquals(List.of("Slim 5.0", "Slim 7.0"), first.stream().map(item -> item.get("name")).collect(Collectors.toList()));
+        first.forEach(item -> assertEquals(Set.of("id", "name"), item.keySet()));
+
+        KeysetScrollPosition last = (KeysetScrollPosition) first.positionAt(first.size() - 1);
+        assertEquals(7.0, last.getKeys().get("price"));
+        Window<Map<String, Object>> second = service.scrollProjected(filter, Sort.Order.asc("price"), last.getKeys(), 2, Set.of("name"));
+        assertEquals(List.of("Slim 9.0"), second.stream().map(item -> item.get("name")).collect(Collectors.toList()));
+        assertFalse(second.hasNext());
+    }
 }
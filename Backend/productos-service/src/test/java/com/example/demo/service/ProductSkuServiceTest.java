@@ -0,0 +1,57 @@
+package com.example.demo.service;
+
+import com.example.demo.application.service.ProductService;
+import com.example.demo.application.service.ProductSkuService;
+import com.example.demo.domain.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductSkuServiceTest {
+
+    @Autowired
+    private ProductSkuService skuService;
+
+    @Autowired
+    private ProductService service;
+
+    @Test
+    void testSkuLookupFollowsSkuChangesAndDeletes() {
+        Product product = new Product();
+        product.setName("Scanner");
+        product.setPrice(99.0);
+        product.setSku("SKU-SCAN-1");
+        product = service.save(product);
+
+        assertEquals(product.getId(), skuService.findBySku("SKU-SCAN-1").orElseThrow().getId());
+
+        Product changed = new Product();
+        changed.setSku("SKU-SCAN-2");
+        service.update(product.getId(), changed);
+
+        assertTrue(skuService.findBySku("SKU-SCAN-1").isEmpty());
+        assertEquals(product.getId(), skuService.findBySku("SKU-SCAN-2").orElseThrow().getId());
+
+        service.deleteById(product.getId());
+        assertTrue(skuService.findBySku("SKU-SCAN-2").isEmpty());
+    }
+
+    @Test
+    void testResolveSkusSkipsUnknown() {
+        Product product = new Product();
+        product.setName("Label printer");
+        product.setPrice(150.0);
+        product.setSku("SKU-LBL-1");
+        service.save(product);
+
+        List<Product> found = skuService.findAllBySkus(List.of("SKU-LBL-1", "SKU-NOPE"));
+
+        assertEquals(1, found.size());
+        assertEquals("Label printer", found.get(0).getName());
+    }
+}
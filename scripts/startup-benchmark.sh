@@ -0,0 +1,152 @@
+#!/usr/bin/env bash
+# =========================================================================
+# Benchmark de arranque: productos-service e inventario-service
+#
+# Compara el modo actual (java -jar del jar completo) con el perfil de
+# arranque optimizado (jar extraído por capas + archivo CDS + AOT de Spring,
+# con y sin inicialización perezosa). Por cada servicio y modo arranca RUNS
+# veces la aplicación y mide:
+#   - arranque ms:  desde lanzar la JVM hasta "Started DemoApplication"
+#   - spring ms:    lo que Spring informa en ese mismo mensaje
+#   - 1ª petición:  latencia de la primera petición de negocio
+#   - RSS MB:       memoria residente tras esa primera petición
+# y muestra la mediana.
+#
+# Uso:  scripts/startup-benchmark.sh            (o: make startup-benchmark)
+#       RUNS=10 SERVICES=inventario-service MVN=mvn scripts/startup-benchmark.sh
+#
+# Cada arranque parte del mismo estado (directorio de trabajo y diario de
+# movimientos nuevos, activo como en docker-compose) con el JDK del PATH; la
+# salida incluye su versión.
+# =========================================================================
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${RUNS:-5}"
+SERVICES="${SERVICES:-productos-service inventario-service}"
+MODES="${MODES:-classic cds cds-aot cds-aot-lazy}"
+WORK="${WORK:-${TMPDIR:-/tmp}/startup-benchmark}"
+MVN="${MVN:-./mvnw}"
+STARTUP_TIMEOUT="${STARTUP_TIMEOUT:-180}"
+API_KEY="12345-SECRET"
+
+port_of() {
+    case "$1" in
+        productos-service) echo 8081 ;;
+        inventario-service) echo 8082 ;;
+    esac
+}
+
+# Primera petición de negocio: no depende del otro servicio
+first_request_of() {
+    case "$1" in
+        productos-service) echo "/products/1" ;;
+        inventario-service) echo "/inventories/1/availability" ;;
+    esac
+}
+
+# 🔹 Compilar el jar actual y el del perfil startup; extraer y entrenar los archivos CDS
+prepare() {
+    local service="$1" dir="$WORK/$1"
+    rm -rf "$dir" && mkdir -p "$dir"
+
+    echo "🏗️  $service: jar actual" >&2
+    (cd "$ROOT/Backend/$service" && $MVN -B -q clean package -DskipTests > "$dir/build-classic.log")
+    cp "$ROOT/Backend/$service"/target/*.jar "$dir/classic.jar"
+
+    echo "🏗️  $service: jar con AOT (-Pstartup), extraído por capas" >&2
+    (cd "$ROOT/Backend/$service" && $MVN -B -q clean package -DskipTests -Pstartup \
+        -Dspring-boot.aot.jvmArguments=-Dinventory.journal.enabled=true > "$dir/build-startup.log")
+    cp "$ROOT/Backend/$service"/target/*.jar "$dir/application.jar"
+    java -Djarmode=tools -jar "$dir/application.jar" extract --layers --destination "$dir/layers"
+    mkdir -p "$dir/optimized"
+    for layer in dependencies spring-boot-loader snapshot-dependencies application; do
+        cp -r "$dir/layers/$layer/." "$dir/optimized/"
+    done
+
+    # Ejecuciones de entrenamiento: arrancan el contexto y salen antes de atender. El
+    # archivo solo vale con la misma ruta del jar, así que se usa siempre la absoluta
+    echo "🏗️  $service: archivos CDS" >&2
+    (cd "$dir" && java -XX:ArchiveClassesAtExit="$dir/optimized/cds.jsa" -Dspring.context.exit=onRefresh \
+        -jar "$dir/optimized/application.jar" --inventory.journal.enabled=true \
+        --inventory.journal.path="$dir/train-journal" > "$dir/train-cds.log" 2>&1)
+    (cd "$dir" && java -XX:ArchiveClassesAtExit="$dir/optimized/cds-aot.jsa" -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh -jar "$dir/optimized/application.jar" --inventory.journal.enabled=true \
+        --inventory.journal.path="$dir/train-journal-aot" > "$dir/train-cds-aot.log" 2>&1)
+}
+
+# 🔹 Línea de comandos de cada modo
+command_of() {
+    local service="$1" mode="$2" dir="$WORK/$1"
+    case "$mode" in
+        classic) echo "java -jar $dir/classic.jar" ;;
+        cds) echo "java -XX:SharedArchiveFile=$dir/optimized/cds.jsa -jar $dir/optimized/application.jar" ;;
+        cds-aot) echo "java -XX:SharedArchiveFile=$dir/optimized/cds-aot.jsa -Dspring.aot.enabled=true -jar $dir/optimized/application.jar" ;;
+        cds-aot-lazy) echo "java -XX:SharedArchiveFile=$dir/optimized/cds-aot.jsa -Dspring.aot.enabled=true -Dspring.main.lazy-initialization=true -jar $dir/optimized/application.jar" ;;
+    esac
+}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# 🔹 Un arranque: imprime "arranque_ms spring_ms primera_peticion_ms rss_mb"
+run_once() {
+    local service="$1" mode="$2" run="$3"
+    local port cwd log pid started elapsed spring first rss
+    port="$(port_of "$service")"
+    cwd="$WORK/$service/run-$mode-$run"
+    log="$cwd/app.log"
+    rm -rf "$cwd" && mkdir -p "$cwd"
+
+    started="$(now_ms)"
+    # shellcheck disable=SC2046
+    (cd "$cwd" && exec $(command_of "$service" "$mode") --server.port="$port" \
+        --inventory.journal.enabled=true --inventory.journal.path="$cwd/journal" > "$log" 2>&1) &
+    pid=$!
+
+    until grep -q "Started DemoApplication" "$log" 2>/dev/null; do
+        if ! kill -0 "$pid" 2>/dev/null || (( $(now_ms) - started > STARTUP_TIMEOUT * 1000 )); then
+            echo "❌ $service ($mode) no arrancó; ver $log" >&2
+            kill "$pid" 2>/dev/null || true
+            exit 1
+        fi
+        # Con pocos núcleos, sondear más a menudo le quita CPU al arranque
+        sleep 0.25
+    done
+    elapsed=$(( $(now_ms) - started ))
+    spring="$(grep -o "Started DemoApplication in [0-9.]* seconds" "$log" | awk '{printf "%d", $4 * 1000}')"
+
+    first="$(curl -s -o /dev/null -w "%{time_total}" -H "X-API-KEY: $API_KEY" \
+        "http://localhost:$port$(first_request_of "$service")" | awk '{printf "%.0f", $1 * 1000}')"
+    rss="$(ps -o rss= -p "$pid" | awk '{printf "%.0f", $1 / 1024}')"
+
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $spring $first $rss"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+java -version 2>&1 | head -1
+echo "RUNS=$RUNS  CPUs=$(nproc)"
+
+for service in $SERVICES; do
+    prepare "$service"
+done
+
+printf "\n%-20s %-14s %12s %10s %14s %8s\n" "servicio" "modo" "arranque ms" "spring ms" "1ª petición ms" "RSS MB"
+for service in $SERVICES; do
+    for mode in $MODES; do
+        results="$WORK/$service/$mode.txt"
+        : > "$results"
+        for run in $(seq "$RUNS"); do
+            run_once "$service" "$mode" "$run" >> "$results"
+        done
+        printf "%-20s %-14s %12s %10s %14s %8s\n" "$service" "$mode" \
+            "$(cut -d' ' -f1 "$results" | median)" "$(cut -d' ' -f2 "$results" | median)" \
+            "$(cut -d' ' -f3 "$results" | median)" "$(cut -d' ' -f4 "$results" | median)"
+    done
+done